@@ -0,0 +1,97 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+
+import hudson.console.ConsoleNote;
+import hudson.model.BuildListener;
+import hudson.model.TaskListener;
+
+/**
+ * {@link BuildListener} writing to a {@link TaskListener}.
+ * 
+ * {@link org.jenkins_ci.plugins.run_condition.BuildStepRunner} requires {@link BuildListener},
+ * but {@link hudson.model.DependencyGraph.Dependency#shouldTriggerBuild(hudson.model.AbstractBuild, TaskListener, java.util.List)}
+ * provides only {@link TaskListener}.
+ * Outputs are written to the wrapped listener directly without buffering.
+ */
+public final class BuildListenerAdapter implements BuildListener {
+    private static final long serialVersionUID = 1L;
+    
+    private final TaskListener listener;
+    
+    private BuildListenerAdapter(TaskListener listener) {
+        this.listener = listener;
+    }
+    
+    /**
+     * @param listener
+     * @return the listener itself if it is a {@link BuildListener}, or a wrapper of it.
+     */
+    public static BuildListener wrap(TaskListener listener) {
+        if (listener instanceof BuildListener) {
+            return (BuildListener)listener;
+        }
+        return new BuildListenerAdapter(listener);
+    }
+    
+    @Override
+    public PrintStream getLogger() {
+        return listener.getLogger();
+    }
+    
+    @SuppressWarnings("rawtypes")
+    @Override
+    public void annotate(ConsoleNote ann) throws IOException {
+        listener.annotate(ann);
+    }
+    
+    @Override
+    public void hyperlink(String url, String text) throws IOException {
+        listener.hyperlink(url, text);
+    }
+    
+    @Override
+    public PrintWriter error(String msg) {
+        return listener.error(msg);
+    }
+    
+    @Override
+    public PrintWriter error(String format, Object... args) {
+        return listener.error(format, args);
+    }
+    
+    @Override
+    public PrintWriter fatalError(String msg) {
+        return listener.fatalError(msg);
+    }
+    
+    @Override
+    public PrintWriter fatalError(String format, Object... args) {
+        return listener.fatalError(format, args);
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.PluginWrapper;
+import hudson.util.RobustReflectionConverter;
+import jenkins.model.Jenkins;
+import jenkins.util.xstream.CriticalXStreamException;
+
+import org.jenkins_ci.plugins.flexible_publish.strategy.FailAtEndExecutionStrategy;
+import org.jenkins_ci.plugins.flexible_publish.strategy.FailFastExecutionStrategy;
+import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+
+import com.google.common.collect.ImmutableBiMap;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.converters.ConversionException;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.mapper.Mapper;
+
+/**
+ * Helpers to write {@link FlexiblePublisher} and {@link ConditionalPublisher}
+ * into config.xml in a compact format.
+ * 
+ * Fields with default values are omitted, and stateless runners and strategies are written with short aliases.
+ * Elements in the compact format are marked with {@code format="2"}, 
+ * and elements without the mark are read in the legacy format.
+ * 
+ * Both formats are always read, but the compact format is written only when
+ * the system property {@code org.jenkins_ci.plugins.flexible_publish.CompactXmlFormat.enabled}
+ * is set to {@code true}, as older versions of this plugin cannot read it.
+ */
+final class CompactXmlFormat {
+    private static final Logger LOGGER = Logger.getLogger(CompactXmlFormat.class.getName());
+    
+    static boolean ENABLED = Boolean.getBoolean(CompactXmlFormat.class.getName() + ".enabled");
+    
+    static final String FORMAT_ATTRIBUTE = "format";
+    static final String FORMAT_VERSION = "2";
+    static final String PLUGIN_ATTRIBUTE = "plugin";
+    
+    /**
+     * aliases to class names of {@link BuildStepRunner}s without fields.
+     */
+    static final ImmutableBiMap<String, String> RUNNERS = ImmutableBiMap.<String, String>builder()
+            .put("fail", BuildStepRunner.Fail.class.getName())
+            .put("unstable", "org.jenkins_ci.plugins.run_condition.BuildStepRunner$Unstable")
+            .put("runUnstable", "org.jenkins_ci.plugins.run_condition.BuildStepRunner$RunUnstable")
+            .put("run", BuildStepRunner.Run.class.getName())
+            .put("dontRun", BuildStepRunner.DontRun.class.getName())
+            .build();
+    
+    /**
+     * aliases to class names of {@link org.jenkins_ci.plugins.flexible_publish.strategy.ConditionalExecutionStrategy}s without fields.
+     */
+    static final ImmutableBiMap<String, String> STRATEGIES = ImmutableBiMap.<String, String>builder()
+            .put("failAtEnd", FailAtEndExecutionStrategy.class.getName())
+            .put("failFast", FailFastExecutionStrategy.class.getName())
+            .build();
+    
+    private CompactXmlFormat() {
+    }
+    
+    static boolean isCompact(HierarchicalStreamReader reader) {
+        return FORMAT_VERSION.equals(reader.getAttribute(FORMAT_ATTRIBUTE));
+    }
+    
+    static void writeFormat(HierarchicalStreamWriter writer) {
+        writer.addAttribute(FORMAT_ATTRIBUTE, FORMAT_VERSION);
+    }
+    
+    /**
+     * Marks the current element with the plugin providing the class
+     * in the same way as {@link hudson.util.RobustReflectionConverter}.
+     */
+    static void writePlugin(HierarchicalStreamWriter writer, Class<?> clazz) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return;
+        }
+        PluginWrapper plugin = jenkins.getPluginManager().whichPlugin(clazz);
+        if (plugin != null) {
+            writer.addAttribute(PLUGIN_ATTRIBUTE, String.format("%s@%s", plugin.getShortName(), plugin.getVersion().replaceFirst(" .*$", "")));
+        }
+    }
+    
+    /**
+     * Writes a child element with the alias of the value if available,
+     * or with the class of the value.
+     * 
+     * @param writer
+     * @param context
+     * @param mapper
+     * @param name the name of the element
+     * @param value
+     * @param aliases aliases to class names. may be {@code null}.
+     */
+    static void writeValue(HierarchicalStreamWriter writer, MarshallingContext context, Mapper mapper,
+            String name, Object value, ImmutableBiMap<String, String> aliases) {
+        writer.startNode(name);
+        String alias = (aliases != null) ? aliases.inverse().get(value.getClass().getName()) : null;
+        if (alias != null) {
+            writer.setValue(alias);
+        } else {
+            writer.addAttribute("class", mapper.serializedClass(value.getClass()));
+            writePlugin(writer, value.getClass());
+            context.convertAnother(value);
+        }
+        writer.endNode();
+    }
+    
+    /**
+     * Reads the current element written with {@link #writeValue}.
+     * 
+     * @param reader
+     * @param context
+     * @param mapper
+     * @param parent
+     * @param aliases aliases to class names. may be {@code null}.
+     * @return the value
+     */
+    static Object readValue(HierarchicalStreamReader reader, UnmarshallingContext context, Mapper mapper,
+            Object parent, ImmutableBiMap<String, String> aliases) {
+        String className = reader.getAttribute("class");
+        if (className != null) {
+            return context.convertAnother(parent, mapper.realClass(className));
+        }
+        String alias = reader.getValue().trim();
+        String aliasedClassName = (aliases != null) ? aliases.get(alias) : null;
+        if (aliasedClassName == null) {
+            throw new ConversionException(String.format("Unknown alias %s for %s", alias, reader.getNodeName()));
+        }
+        try {
+            return Class.forName(aliasedClassName, true, CompactXmlFormat.class.getClassLoader()).newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ConversionException(String.format("Failed to instantiate %s", aliasedClassName), e);
+        }
+    }
+    
+    /**
+     * Writes a list with element names of classes of items.
+     */
+    static void writeList(HierarchicalStreamWriter writer, MarshallingContext context, Mapper mapper,
+            String name, List<?> list) {
+        writer.startNode(name);
+        for (Object item: list) {
+            if (item == null) {
+                continue;
+            }
+            writer.startNode(mapper.serializedClass(item.getClass()));
+            writePlugin(writer, item.getClass());
+            context.convertAnother(item);
+            writer.endNode();
+        }
+        writer.endNode();
+    }
+    
+    /**
+     * Reads the current element written with {@link #writeList}.
+     * Items failed to read (e.g. classes of uninstalled plugins) are skipped
+     * and reported to {@link hudson.diagnosis.OldDataMonitor} like {@link hudson.util.RobustCollectionConverter} does.
+     */
+    static <T> List<T> readList(HierarchicalStreamReader reader, UnmarshallingContext context, Mapper mapper,
+            Object parent, Class<T> itemType) {
+        List<T> list = new ArrayList<T>();
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            try {
+                Object item = context.convertAnother(parent, mapper.realClass(reader.getNodeName()));
+                if (itemType.isInstance(item)) {
+                    list.add(itemType.cast(item));
+                }
+            } catch (CriticalXStreamException e) {
+                throw e;
+            } catch (XStreamException e) {
+                reportSkipped(reader, context, e);
+            } catch (LinkageError e) {
+                reportSkipped(reader, context, e);
+            } finally {
+                reader.moveUp();
+            }
+        }
+        return list;
+    }
+    
+    private static void reportSkipped(HierarchicalStreamReader reader, UnmarshallingContext context, Throwable t) {
+        String plugin = reader.getAttribute(PLUGIN_ATTRIBUTE);
+        String message = (plugin != null)
+                ? String.format("Failed to load %s provided by %s", reader.getNodeName(), plugin)
+                : String.format("Failed to load %s", reader.getNodeName());
+        LOGGER.log(Level.FINE, message, t);
+        RobustReflectionConverter.addErrorInContext(context, new ConversionException(message, t));
+    }
+}
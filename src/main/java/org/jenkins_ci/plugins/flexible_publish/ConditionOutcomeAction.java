@@ -0,0 +1,285 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator.Evaluation;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator.Outcome;
+import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.Launcher;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.InvisibleAction;
+import hudson.model.Items;
+import hudson.model.Result;
+
+/**
+ * Records outcomes of conditions of {@link ConditionalPublisher}s evaluated in the build.
+ * 
+ * Trigger evaluations and matrix aggregations reuse recorded outcomes
+ * instead of evaluating conditions again
+ * for conditions not depending on the state of the build (see {@link CompiledCondition#dependsOnBuildState()}),
+ * unless the condition depends on the build result and the result is changed since.
+ * Available via the remote API.
+ */
+@ExportedBean
+public class ConditionOutcomeAction extends InvisibleAction {
+    private static final Logger LOGGER = Logger.getLogger(ConditionOutcomeAction.class.getName());
+    private static final Map<RunCondition, String> KEYS = new WeakHashMap<RunCondition, String>();
+    
+    private final List<ConditionOutcome> outcomes = new ArrayList<ConditionOutcome>();
+    
+    /**
+     * An outcome of a condition.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class ConditionOutcome {
+        private final String key;
+        private final Outcome outcome;
+        private final boolean run;
+        private final boolean success;
+        private final Result result;
+        private final String error;
+        /**
+         * Not persisted. Restored from {@link #error} after restarts.
+         */
+        private transient Exception exception;
+        
+        public ConditionOutcome(String key, Evaluation evaluation, Result result) {
+            this.key = key;
+            this.outcome = evaluation.getOutcome();
+            this.run = evaluation.isRun();
+            this.success = evaluation.isSuccess();
+            this.result = result;
+            this.exception = evaluation.getException();
+            this.error = (exception != null) ? exception.toString() : null;
+        }
+        
+        /**
+         * @return the digest of the configuration of the condition and the runner.
+         */
+        @Exported
+        public String getKey() {
+            return key;
+        }
+        
+        @Exported
+        public Outcome getOutcome() {
+            return outcome;
+        }
+        
+        /**
+         * @return whether publishers ran.
+         */
+        @Exported
+        public boolean isRun() {
+            return run;
+        }
+        
+        @Exported
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        /**
+         * @return the build result when evaluated. null if not decided yet.
+         */
+        public Result getResult() {
+            return result;
+        }
+        
+        /**
+         * @return the exception thrown from the condition. null unless {@link Outcome#ERROR}.
+         */
+        @Exported
+        public String getError() {
+            return error;
+        }
+        
+        public Evaluation toEvaluation() {
+            Exception e = exception;
+            if (e == null && error != null) {
+                e = new Exception(error);
+            }
+            return Evaluation.of(outcome, run, success, e);
+        }
+    }
+    
+    @Exported
+    public synchronized List<ConditionOutcome> getOutcomes() {
+        return Collections.unmodifiableList(new ArrayList<ConditionOutcome>(outcomes));
+    }
+    
+    /**
+     * @param key
+     * @return the last recorded outcome for the key. null if not recorded.
+     */
+    public synchronized ConditionOutcome getOutcome(String key) {
+        for (int i = outcomes.size() - 1; i >= 0; --i) {
+            if (outcomes.get(i).getKey().equals(key)) {
+                return outcomes.get(i);
+            }
+        }
+        return null;
+    }
+    
+    private synchronized void add(ConditionOutcome outcome) {
+        for (int i = 0; i < outcomes.size(); ++i) {
+            if (outcomes.get(i).getKey().equals(outcome.getKey())) {
+                outcomes.set(i, outcome);
+                return;
+            }
+        }
+        outcomes.add(outcome);
+    }
+    
+    /**
+     * @param condition
+     * @param runner
+     * @return the key to identify the condition and the runner. null if not available.
+     */
+    public static String keyOf(RunCondition condition, BuildStepRunner runner) {
+        if (condition == null) {
+            return null;
+        }
+        String digest;
+        synchronized (KEYS) {
+            digest = KEYS.get(condition);
+        }
+        if (digest == null) {
+            try {
+                digest = Util.getDigestOf(Items.XSTREAM2.toXML(condition));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Failed to serialize a condition", e);
+                return null;
+            }
+            synchronized (KEYS) {
+                KEYS.put(condition, digest);
+            }
+        }
+        return String.format("%s:%s", digest, (runner != null) ? runner.getClass().getName() : "");
+    }
+    
+    /**
+     * Evaluates the condition, and records the outcome to the build.
+     * 
+     * @param condition
+     * @param runner
+     * @param build
+     * @param launcher
+     * @param listener
+     * @return the result of the evaluation.
+     * @throws InterruptedException
+     * @throws IOException
+     * @see ConditionEvaluator#evaluate(CompiledCondition, BuildStepRunner, AbstractBuild, Launcher, BuildListener)
+     */
+    public static Evaluation evaluateAndRecord(CompiledCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        long start = System.nanoTime();
+        Evaluation evaluation = ConditionEvaluator.evaluate(condition, runner, build, launcher, listener);
+        FlexiblePublishTimingAction.recordCondition(
+                build,
+                (condition.getCondition() != null) ? condition.getCondition().getDescriptor().getDisplayName() : null,
+                System.nanoTime() - start,
+                evaluation
+        );
+        String key = keyOf(condition.getCondition(), runner);
+        if (key != null) {
+            ConditionOutcomeAction action;
+            synchronized (build) {
+                action = build.getAction(ConditionOutcomeAction.class);
+                if (action == null) {
+                    action = new ConditionOutcomeAction();
+                    build.addAction(action);
+                }
+            }
+            action.add(new ConditionOutcome(key, evaluation, build.getResult()));
+        }
+        return evaluation;
+    }
+    
+    /**
+     * @param condition
+     * @param runner
+     * @param build
+     * @return the recorded outcome usable for the current state of the build. null if not available.
+     */
+    public static Evaluation lookup(CompiledCondition condition, BuildStepRunner runner, AbstractBuild<?, ?> build) {
+        if (condition.dependsOnBuildState()) {
+            // e.g. files in the workspace may be changed since.
+            return null;
+        }
+        ConditionOutcomeAction action = build.getAction(ConditionOutcomeAction.class);
+        if (action == null) {
+            return null;
+        }
+        String key = keyOf(condition.getCondition(), runner);
+        ConditionOutcome outcome = (key != null) ? action.getOutcome(key) : null;
+        if (outcome == null) {
+            return null;
+        }
+        if (condition.dependsOnResult() && outcome.getResult() != build.getResult()) {
+            return null;
+        }
+        return outcome.toEvaluation();
+    }
+    
+    /**
+     * Reuses the recorded outcome, or evaluates the condition if not available.
+     * 
+     * @param condition
+     * @param runner
+     * @param build
+     * @param launcher
+     * @param listener
+     * @return the result of the evaluation.
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    public static Evaluation lookupOrEvaluate(CompiledCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        Evaluation evaluation = lookup(condition, runner, build);
+        if (evaluation != null) {
+            return evaluation;
+        }
+        return ConditionEvaluator.evaluate(condition, runner, build, launcher, listener);
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.EvaluationScope;
+import org.jenkins_ci.plugins.flexible_publish.condition.PreEvaluatedCondition;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Executor;
+import hudson.model.Result;
+import hudson.model.StreamBuildListener;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+/**
+ * Evaluates conditions of all {@link ConditionalPublisher}s at the same time
+ * before running publishers.
+ * 
+ * Conditions depending on the build result and following a group
+ * which may change the build result (see {@link ConditionalPublisher#isResultChanging()})
+ * are not evaluated in advance, but in order.
+ * Conditions depending on the state of the build (e.g. files in the workspace)
+ * are evaluated again if a preceding publisher runs (see {@link PreEvaluatedCondition}).
+ * 
+ * Conditions are evaluated with {@link #MAX_THREADS} threads at most in the controller,
+ * shared among all builds.
+ * The console output of each condition is buffered,
+ * and written in the order of groups.
+ */
+public final class ConditionPreEvaluator {
+    /**
+     * The number of threads to evaluate conditions.
+     * Can be changed with the system property
+     * {@code org.jenkins_ci.plugins.flexible_publish.ConditionPreEvaluator.maxThreads}.
+     */
+    public static final int MAX_THREADS = Math.max(1, Integer.getInteger(ConditionPreEvaluator.class.getName() + ".maxThreads", 4));
+    
+    private static final ExecutorService POOL = createPool();
+    
+    private ConditionPreEvaluator() {
+    }
+    
+    private static ExecutorService createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                MAX_THREADS,
+                MAX_THREADS,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "FlexiblePublisher condition pre-evaluation")
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+    
+    /**
+     * @param publishers
+     * @param build
+     * @param listener
+     * @return conditions to use for each publisher.
+     * @throws InterruptedException
+     */
+    public static List<CompiledCondition> preEvaluate(
+            List<ConditionalPublisher> publishers,
+            final AbstractBuild<?, ?> build,
+            final BuildListener listener
+    ) throws InterruptedException {
+        // run as the current user, and on the current executor to have the same environment.
+        ExecutorService executor = new ImpersonatingExecutorService(POOL, Jenkins.getAuthentication());
+        Executor buildExecutor = Executor.currentExecutor();
+        final Result result = build.getResult();
+        // tasks share the environment of the build with the caller.
+        final EvaluationScope scope = EvaluationScope.current(build);
+        
+        List<Future<CompiledCondition>> futures = new ArrayList<Future<CompiledCondition>>(publishers.size());
+        List<ByteArrayOutputStream> outputs = new ArrayList<ByteArrayOutputStream>(publishers.size());
+        boolean resultChanging = false;
+        for (ConditionalPublisher publisher: publishers) {
+            final CompiledCondition condition = publisher.getCompiledCondition();
+            if (resultChanging && condition.dependsOnResult()) {
+                // evaluated after preceding groups run.
+                futures.add(null);
+                outputs.add(null);
+            } else {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                final BuildListener conditionListener = new StreamBuildListener(output, build.getCharset());
+                Callable<CompiledCondition> task = new Callable<CompiledCondition>() {
+                    @Override
+                    public CompiledCondition call() {
+                        if (scope != null) {
+                            scope.join();
+                        }
+                        try {
+                            return new PreEvaluatedCondition(condition, result, scope, condition.runPerform(build, conditionListener), null);
+                        } catch (Exception e) {
+                            return new PreEvaluatedCondition(condition, result, scope, false, e);
+                        } finally {
+                            conditionListener.getLogger().flush();
+                            if (scope != null) {
+                                scope.close();
+                            }
+                        }
+                    }
+                };
+                if (buildExecutor != null) {
+                    task = buildExecutor.newImpersonatingCallable(task);
+                }
+                futures.add(executor.submit(task));
+                outputs.add(output);
+            }
+            resultChanging |= publisher.isResultChanging();
+        }
+        
+        List<CompiledCondition> conditions = new ArrayList<CompiledCondition>(publishers.size());
+        try {
+            for (int i = 0; i < publishers.size(); ++i) {
+                Future<CompiledCondition> future = futures.get(i);
+                if (future == null) {
+                    conditions.add(publishers.get(i).getCompiledCondition());
+                    continue;
+                }
+                try {
+                    conditions.add(future.get());
+                } catch (ExecutionException e) {
+                    // never happens as exceptions are caught in the task.
+                    throw new IllegalStateException(e.getCause());
+                }
+                byte[] output = outputs.get(i).toByteArray();
+                listener.getLogger().write(output, 0, output.length);
+            }
+        } finally {
+            for (Future<CompiledCondition> future: futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+        return conditions;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import hudson.model.Items;
+
+/**
+ * Identifies a {@link RunCondition} and a {@link BuildStepRunner} by their configurations.
+ * 
+ * Most {@link RunCondition}s don't override {@link Object#equals(Object)},
+ * and conditions configured in the same way in different {@link ConditionalPublisher}s
+ * never compare equal.
+ * This compares their serialized forms instead.
+ * Serialized forms are interned, and equal signatures usually share the same string.
+ */
+public final class ConditionSignature {
+    private static final Logger LOGGER = Logger.getLogger(ConditionSignature.class.getName());
+    private static final Interner<String> CONFIGURATIONS = Interners.newWeakInterner();
+    
+    /**
+     * the interned configuration, or the condition itself if it cannot be serialized.
+     */
+    private final Object identity;
+    private final int hashCode;
+    
+    private ConditionSignature(Object identity) {
+        this.identity = identity;
+        this.hashCode = identity.hashCode();
+    }
+    
+    /**
+     * @param condition the condition. may be null.
+     * @param runner the runner applied to the condition. may be null.
+     * @return the signature of the condition and the runner.
+     */
+    public static ConditionSignature of(RunCondition condition, BuildStepRunner runner) {
+        String configuration;
+        try {
+            configuration = toXml(condition) + toXml(runner);
+        } catch (RuntimeException e) {
+            // fall back to the identity of the condition.
+            LOGGER.log(Level.FINE, "Failed to serialize a condition", e);
+            return new ConditionSignature((condition != null) ? condition : new Object());
+        }
+        return new ConditionSignature(CONFIGURATIONS.intern(configuration));
+    }
+    
+    private static String toXml(Object o) {
+        return (o != null) ? Items.XSTREAM2.toXML(o) : "<null/>";
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        ConditionSignature s = (ConditionSignature)obj;
+        return hashCode == s.hashCode && (identity == s.identity || identity.equals(s.identity));
+    }
+    
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
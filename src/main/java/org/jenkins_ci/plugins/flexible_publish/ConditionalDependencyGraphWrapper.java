@@ -26,6 +26,7 @@ package org.jenkins_ci.plugins.flexible_publish;
 import java.util.List;
 import java.util.Set;
 
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
 import org.jenkins_ci.plugins.run_condition.RunCondition;
 import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
 
@@ -40,10 +41,15 @@ import hudson.model.DependencyGraph;
 public class ConditionalDependencyGraphWrapper extends DependencyGraph
 {
     private DependencyGraph graph;
-    private RunCondition condition;
+    private CompiledCondition condition;
     private BuildStepRunner runner;
+    private ConditionSignature signature;
     
     public ConditionalDependencyGraphWrapper(DependencyGraph graph, RunCondition condition, BuildStepRunner runner) {
+        this(graph, CompiledCondition.compile(condition), runner);
+    }
+    
+    public ConditionalDependencyGraphWrapper(DependencyGraph graph, CompiledCondition condition, BuildStepRunner runner) {
         this.graph = graph;
         this.condition = condition;
         this.runner = runner;
@@ -56,7 +62,11 @@ public class ConditionalDependencyGraphWrapper extends DependencyGraph
      */
     @Override
     public void addDependency(Dependency dep) {
-        graph.addDependency(new ConditionalDependencyWrapper(dep, condition, runner));
+        if (signature == null) {
+            // computed only when the condition is really used.
+            signature = ConditionSignature.of(condition.getCondition(), runner);
+        }
+        graph.addDependency(new ConditionalDependencyWrapper(dep, condition, runner, signature));
     }
     
     @Override
@@ -23,11 +23,12 @@
  */
 package org.jenkins_ci.plugins.flexible_publish;
 
-import java.io.IOException;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
 import org.jenkins_ci.plugins.run_condition.RunCondition;
 import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
 
@@ -35,14 +36,9 @@ import hudson.Launcher;
 import hudson.model.DependencyGraph.Dependency;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
-import hudson.model.Descriptor;
 import hudson.model.Action;
 import hudson.model.BuildListener;
-import hudson.model.StreamBuildListener;
 import hudson.model.TaskListener;
-import hudson.tasks.BuildStepDescriptor;
-import hudson.tasks.Builder;
-import hudson.util.NullStream;
 
 /**
  * Wraps {@link Dependency} and evaluates {@link RunCondition} when the dependency is triggered.
@@ -50,14 +46,26 @@ import hudson.util.NullStream;
 public class ConditionalDependencyWrapper extends Dependency {
     private static Logger LOGGER = Logger.getLogger(ConditionalDependencyWrapper.class.getName());
     private Dependency dep;
-    private RunCondition condition;
+    private CompiledCondition condition;
     private BuildStepRunner runner;
+    private ConditionSignature signature;
     
     public ConditionalDependencyWrapper(Dependency dep, RunCondition condition, BuildStepRunner runner) {
+        this(dep, CompiledCondition.compile(condition), runner, ConditionSignature.of(condition, runner));
+    }
+    
+    /**
+     * @param dep
+     * @param condition
+     * @param runner
+     * @param signature signature of condition and runner, shared among dependencies with the same condition.
+     */
+    public ConditionalDependencyWrapper(Dependency dep, CompiledCondition condition, BuildStepRunner runner, ConditionSignature signature) {
         super(dep.getUpstreamProject(), dep.getDownstreamProject());
         this.dep = dep;
         this.condition = condition;
         this.runner = runner;
+        this.signature = signature;
     }
     
     /**
@@ -71,36 +79,53 @@ public class ConditionalDependencyWrapper extends Dependency {
     @Override
     public boolean shouldTriggerBuild(AbstractBuild build,
             TaskListener listener, List<Action> actions) {
-        BuildListener buildListener = null;
-        if (listener instanceof BuildListener) {
-            buildListener = (BuildListener)listener;
-        } else {
-            // Usually listener is instance of BuildListener, 
-            // So there may be no case entering this path.
-            // If there's that case, BuildLister wrapping TaskListener should be written.
-            LOGGER.warning("There is no BuildListener, and logs from RunCondition won't be recorded.");
-            buildListener = new StreamBuildListener(new NullStream());
-        }
+        // Usually listener is instance of BuildListener.
+        BuildListener buildListener = BuildListenerAdapter.wrap(listener);
         
+        boolean conditionMet = false;
+        boolean triggered = false;
+        long durationNanos = 0;
+        Exception exception = null;
         try {
-            MarkPerformedBuilder marker = new MarkPerformedBuilder();
-            
-            // launcher is not used by condition or runner or marker,
+            // launcher is not used by conditions or runners provided by run-condition,
             // this never cause NPE.
             Launcher launcher = null;
-            runner.perform(condition, marker, build, launcher, buildListener);
+            long start = System.nanoTime();
+            ConditionEvaluator.Evaluation evaluation;
+            try {
+                // reuses the outcome of the condition evaluated when the publisher ran.
+                evaluation = ConditionOutcomeAction.lookupOrEvaluate(condition, runner, build, launcher, buildListener);
+            } finally {
+                durationNanos = System.nanoTime() - start;
+            }
+            conditionMet = (evaluation.getOutcome() == ConditionEvaluator.Outcome.RUN);
+            exception = evaluation.getException();
             
-            if (marker.isPerformed()) {
-                return dep.shouldTriggerBuild(build, listener, actions);
-            } else {
-                return false;
+            if (evaluation.isRun()) {
+                triggered = dep.shouldTriggerBuild(build, listener, actions);
             }
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Failed to evaluate condition", e);
-            return false;
+            exception = e;
         }
+        TriggerEvaluationAction.record(build, new TriggerEvaluationAction.TriggerEvaluation(
+                build.getParent().getFullName(),
+                build.getNumber(),
+                getDownstreamProject().getFullName(),
+                (condition.getCondition() != null) ? condition.getCondition().getDescriptor().getDisplayName() : null,
+                conditionMet,
+                triggered,
+                durationNanos,
+                (exception != null) ? exception.toString() : null
+        ));
+        return triggered;
     }
     
+    /**
+     * Dependencies with the same configurations of conditions are equal
+     * even if conditions don't implement {@link Object#equals(Object)},
+     * and are merged into one in {@link hudson.model.DependencyGraph}.
+     */
     @Override
     public boolean equals(Object obj) {
         if (obj == null || getClass() != obj.getClass()) {
@@ -109,12 +134,12 @@ public class ConditionalDependencyWrapper extends Dependency {
         
         ConditionalDependencyWrapper d = (ConditionalDependencyWrapper)obj;
         
-        return dep.equals(d.dep) && condition.equals(d.condition);
+        return dep.equals(d.dep) && signature.equals(d.signature);
     }
     
     @Override
     public int hashCode() {
-        return dep.hashCode() * 23 + condition.hashCode();
+        return dep.hashCode() * 23 + signature.hashCode();
     }
     
     @SuppressWarnings("rawtypes")
@@ -133,42 +158,4 @@ public class ConditionalDependencyWrapper extends Dependency {
     public boolean pointsItself() {
         return dep.pointsItself();
     }
-    
-    /**
-     * Used with {@link BuildStepRunner}.
-     * 
-     * Stores whether perform is executed.
-     */
-    private static class MarkPerformedBuilder extends Builder {
-        private boolean performed = false;
-        
-        public boolean isPerformed() {
-            return performed;
-        }
-        
-        @Override
-        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher,
-                BuildListener listener) throws InterruptedException, IOException {
-            performed = true;
-            return true;
-        }
-        
-        private static final Descriptor<Builder> DESCRIPTOR =
-                new BuildStepDescriptor<Builder>() {
-            @SuppressWarnings("rawtypes")
-            @Override
-            public boolean isApplicable(Class<? extends AbstractProject> jobType) {
-                return true;
-            }
-            
-            @Override
-            public String getDisplayName() {
-                return "Builder to mark whether executed";
-            }
-        };
-        @Override
-        public Descriptor<Builder> getDescriptor() {
-            return DESCRIPTOR;
-        }
-    };
 }
@@ -25,9 +25,12 @@
 package org.jenkins_ci.plugins.flexible_publish;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
+import org.jenkins_ci.plugins.flexible_publish.jfr.JfrEvents;
 import org.jenkins_ci.plugins.flexible_publish.strategy.ConditionalExecutionStrategy;
 
 import hudson.Launcher;
@@ -35,6 +38,7 @@ import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
 import hudson.matrix.MatrixRun;
 import hudson.model.BuildListener;
+import hudson.tasks.BuildStep;
 import hudson.tasks.Publisher;
 
 /**
@@ -66,24 +70,75 @@ public class ConditionalMatrixAggregator extends MatrixAggregator {
                 launcher,
                 listener,
                 conditionalPublisher.getRunner(),
-                conditionalPublisher.getCondition(),
+                conditionalPublisher.getCompiledCondition(),
                 baseAggregatorList
         );
     }
     
+    private JfrEvents.Span beginEvent(String phase) {
+        if (!JfrEvents.isEnabled(JfrEvents.Kind.AGGREGATION)) {
+            // no need to list publishers.
+            return JfrEvents.begin(JfrEvents.Kind.AGGREGATION, build, null, phase);
+        }
+        List<String> classNames = new ArrayList<String>();
+        for (BuildStep publisher: conditionalPublisher.getPublisherList()) {
+            classNames.add(publisher.getClass().getName());
+        }
+        return JfrEvents.begin(JfrEvents.Kind.AGGREGATION, build, StringUtils.join(classNames, ","), phase);
+    }
+    
+    private void logEvent(String phase, Boolean result, Object... fields) {
+        if (!FlexiblePublishEventLog.ENABLED) {
+            return;
+        }
+        Object[] allFields = new Object[fields.length + 6];
+        allFields[0] = "phase";
+        allFields[1] = phase;
+        allFields[2] = "publishers";
+        allFields[3] = FlexiblePublisher.getBuildStepShortName(conditionalPublisher.getPublisherList());
+        allFields[4] = "result";
+        allFields[5] = result;
+        System.arraycopy(fields, 0, allFields, 6, fields.length);
+        FlexiblePublishEventLog.log(build, "aggregation", allFields);
+    }
+    
     @Override
     public boolean startBuild() throws InterruptedException, IOException {
-        return conditionalPublisher.getExecutionStrategy().matrixAggregationStartBuild(createAggregatorContext());
+        JfrEvents.Span span = beginEvent("startBuild");
+        Boolean result = null;
+        try {
+            result = conditionalPublisher.getExecutionStrategy().matrixAggregationStartBuild(createAggregatorContext());
+            return result;
+        } finally {
+            span.end(String.valueOf(result));
+            logEvent("startBuild", result);
+        }
     }
     
     @Override
     public boolean endRun(MatrixRun run)
             throws InterruptedException, IOException {
-        return conditionalPublisher.getExecutionStrategy().matrixAggregationEndRun(createAggregatorContext(), run);
+        JfrEvents.Span span = beginEvent("endRun");
+        Boolean result = null;
+        try {
+            result = conditionalPublisher.getExecutionStrategy().matrixAggregationEndRun(createAggregatorContext(), run);
+            return result;
+        } finally {
+            span.end(String.valueOf(result));
+            logEvent("endRun", result, "run", run.getParent().getName());
+        }
     }
     
     @Override
     public boolean endBuild() throws InterruptedException, IOException {
-        return conditionalPublisher.getExecutionStrategy().matrixAggregationEndBuild(createAggregatorContext());
+        JfrEvents.Span span = beginEvent("endBuild");
+        Boolean result = null;
+        try {
+            result = conditionalPublisher.getExecutionStrategy().matrixAggregationEndBuild(createAggregatorContext());
+            return result;
+        } finally {
+            span.end(String.valueOf(result));
+            logEvent("endBuild", result);
+        }
     }
 }
@@ -27,6 +27,7 @@ package org.jenkins_ci.plugins.flexible_publish;
 import hudson.DescriptorExtensionList;
 import hudson.Extension;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.matrix.MatrixAggregatable;
 import hudson.matrix.MatrixAggregator;
 import hudson.matrix.MatrixBuild;
@@ -40,16 +41,19 @@ import hudson.model.DependencyGraph;
 import hudson.model.Describable;
 import hudson.model.Descriptor;
 import hudson.model.Hudson;
+import hudson.model.Items;
 import hudson.model.Saveable;
 import hudson.tasks.ArtifactArchiver;
 import hudson.tasks.BuildStep;
 import hudson.tasks.Builder;
 import hudson.tasks.Publisher;
 import hudson.util.DescribableList;
+import hudson.util.XStream2;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
-import org.jenkins_ci.plugins.flexible_publish.builder.MarkPerformedBuilder;
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
 import org.jenkins_ci.plugins.flexible_publish.strategy.ConditionalExecutionStrategy;
 import org.jenkins_ci.plugins.flexible_publish.strategy.FailAtEndExecutionStrategy;
 import org.jenkins_ci.plugins.flexible_publish.strategy.FailFastExecutionStrategy;
@@ -68,12 +72,16 @@ import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import jenkins.model.Jenkins;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.mapper.Mapper;
 
 public class ConditionalPublisher implements Describable<ConditionalPublisher>, DependecyDeclarer {
 
     private static final Logger LOGGER = Logger.getLogger(ConditionalPublisher.class.getName());
-    
+
     private final RunCondition condition;
     @Deprecated
     private transient BuildStep publisher;
@@ -86,6 +94,10 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
     private final BuildStepRunner aggregationRunner;
     
     private /*final*/ ConditionalExecutionStrategy executionStrategy;
+    
+    // compiled when the configuration is loaded.
+    private transient CompiledCondition compiledCondition;
+    private transient CompiledCondition compiledAggregationCondition;
 
     @Deprecated
     public ConditionalPublisher(final RunCondition condition, final BuildStep publisher, final BuildStepRunner runner) {
@@ -137,6 +149,12 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
             this.aggregationRunner = null;
         }
         this.executionStrategy = (executionStrategy != null)?executionStrategy:new FailAtEndExecutionStrategy();
+        compileConditions();
+    }
+    
+    private void compileConditions() {
+        compiledCondition = CompiledCondition.compile(condition);
+        compiledAggregationCondition = (aggregationCondition != null) ? CompiledCondition.compile(aggregationCondition) : null;
     }
 
     public RunCondition getCondition() {
@@ -160,6 +178,13 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
     public BuildStepRunner getRunner() {
         return runner;
     }
+    
+    /**
+     * @return {@link #getCondition()} compiled for evaluation.
+     */
+    public CompiledCondition getCompiledCondition() {
+        return compiledCondition;
+    }
 
     public RunCondition getAggregationCondition() {
         return aggregationCondition;
@@ -168,6 +193,13 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
     public BuildStepRunner getAggregationRunner() {
         return aggregationRunner;
     }
+    
+    /**
+     * @return {@link #getAggregationCondition()} compiled for evaluation. null if not configured.
+     */
+    public CompiledCondition getCompiledAggregationCondition() {
+        return compiledAggregationCondition;
+    }
 
     public boolean isConfiguredAggregation() {
         return getAggregationCondition() != null;
@@ -190,6 +222,10 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
     }
 
     private ConditionalExecutionStrategy.PublisherContext createExecutionStrategyContext() {
+        return createExecutionStrategyContext(compiledCondition);
+    }
+
+    private ConditionalExecutionStrategy.PublisherContext createExecutionStrategyContext(CompiledCondition condition) {
         return new ConditionalExecutionStrategy.PublisherContext(
                 runner,
                 condition,
@@ -197,6 +233,20 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
         );
     }
 
+    /**
+     * @return whether publishers in this may change the build result.
+     *     true unless all publishers are {@link ResultPreservingPublisher}s.
+     * @see ResultPreservingPublisher
+     */
+    public boolean isResultChanging() {
+        for (BuildStep publisher: getPublisherList()) {
+            if (!(publisher instanceof ResultPreservingPublisher)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean prebuild(final AbstractBuild<?, ?> build, final BuildListener listener) {
         return getExecutionStrategy().prebuild(createExecutionStrategyContext(), build, listener);
     }
@@ -206,6 +256,22 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
         return getExecutionStrategy().perform(createExecutionStrategyContext(), build, launcher, listener);
     }
 
+    /**
+     * Performs publishers with the condition evaluated in advance.
+     * 
+     * @param build
+     * @param launcher
+     * @param listener
+     * @param condition the condition to use instead of {@link #getCompiledCondition()}.
+     * @return
+     * @throws InterruptedException
+     * @throws IOException
+     */
+    boolean perform(final AbstractBuild<?, ?> build, final Launcher launcher, final BuildListener listener, final CompiledCondition condition)
+                                                                                                throws InterruptedException, IOException {
+        return getExecutionStrategy().perform(createExecutionStrategyContext(condition), build, launcher, listener);
+    }
+
     public ConditionalMatrixAggregator createAggregator(MatrixBuild build, Launcher launcher, BuildListener listener) {
         boolean supportAggregation = false;
         
@@ -230,25 +296,24 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
         }
         // First, decide whether the condition is satisfied
         // in the parent scope.
-        RunCondition cond;
+        CompiledCondition cond;
         BuildStepRunner runner;
         if (isConfiguredAggregation()) {
-            cond = getAggregationCondition();
+            cond = getCompiledAggregationCondition();
             runner = getAggregationRunner();
         } else {
-            cond = getCondition();
+            cond = getCompiledCondition();
             runner = getRunner();
         }
         
-        MarkPerformedBuilder mpb = new MarkPerformedBuilder();
-        boolean isSuccess = false;
+        ConditionEvaluator.Evaluation evaluation = ConditionEvaluator.Evaluation.SKIP;
         try {
-            isSuccess = runner.perform(cond, mpb, build, launcher, listener);
+            evaluation = ConditionEvaluator.evaluate(cond, runner, build, launcher, listener);
         } catch(Exception e) {
             e.printStackTrace(listener.getLogger());
         }
         
-        if (!isSuccess || !mpb.isPerformed()) {
+        if (!evaluation.isSuccess() || !evaluation.isRun()) {
             // condition is not satisfied.
             // no need to run aggregation.
             return null;
@@ -300,8 +365,97 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
             executionStrategy = new FailFastExecutionStrategy();
         }
         
+        compileConditions();
+        
         return this;
     }
+    
+    /**
+     * Writes in {@link CompactXmlFormat} if enabled, and reads both the compact and the legacy formats.
+     */
+    public static final class ConverterImpl extends XStream2.PassthruConverter<ConditionalPublisher> {
+        private final Mapper mapper;
+        
+        public ConverterImpl(XStream2 xstream) {
+            super(xstream);
+            this.mapper = xstream.getMapper();
+        }
+        
+        @Override
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            if (!CompactXmlFormat.ENABLED) {
+                super.marshal(source, writer, context);
+                return;
+            }
+            ConditionalPublisher p = (ConditionalPublisher)source;
+            CompactXmlFormat.writeFormat(writer);
+            if (p.condition != null) {
+                CompactXmlFormat.writeValue(writer, context, mapper, "condition", p.condition, null);
+            }
+            if (p.publisherList != null) {
+                CompactXmlFormat.writeList(writer, context, mapper, "publisherList", p.publisherList);
+            }
+            if (p.runner != null && !(p.runner instanceof BuildStepRunner.Fail)) {
+                CompactXmlFormat.writeValue(writer, context, mapper, "runner", p.runner, CompactXmlFormat.RUNNERS);
+            }
+            if (p.aggregationCondition != null) {
+                CompactXmlFormat.writeValue(writer, context, mapper, "aggregationCondition", p.aggregationCondition, null);
+            }
+            if (p.aggregationRunner != null) {
+                CompactXmlFormat.writeValue(writer, context, mapper, "aggregationRunner", p.aggregationRunner, CompactXmlFormat.RUNNERS);
+            }
+            if (p.executionStrategy != null && !(p.executionStrategy instanceof FailAtEndExecutionStrategy)) {
+                CompactXmlFormat.writeValue(writer, context, mapper, "executionStrategy", p.executionStrategy, CompactXmlFormat.STRATEGIES);
+            }
+        }
+        
+        @Override
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            if (!CompactXmlFormat.isCompact(reader)) {
+                // readResolve() handles legacy formats.
+                return super.unmarshal(reader, context);
+            }
+            RunCondition condition = null;
+            List<BuildStep> publisherList = null;
+            BuildStepRunner runner = null;
+            RunCondition aggregationCondition = null;
+            BuildStepRunner aggregationRunner = null;
+            ConditionalExecutionStrategy executionStrategy = null;
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                String name = reader.getNodeName();
+                if ("condition".equals(name)) {
+                    condition = (RunCondition)CompactXmlFormat.readValue(reader, context, mapper, null, null);
+                } else if ("publisherList".equals(name)) {
+                    publisherList = CompactXmlFormat.readList(reader, context, mapper, null, BuildStep.class);
+                } else if ("runner".equals(name)) {
+                    runner = (BuildStepRunner)CompactXmlFormat.readValue(reader, context, mapper, null, CompactXmlFormat.RUNNERS);
+                } else if ("aggregationCondition".equals(name)) {
+                    aggregationCondition = (RunCondition)CompactXmlFormat.readValue(reader, context, mapper, null, null);
+                } else if ("aggregationRunner".equals(name)) {
+                    aggregationRunner = (BuildStepRunner)CompactXmlFormat.readValue(reader, context, mapper, null, CompactXmlFormat.RUNNERS);
+                } else if ("executionStrategy".equals(name)) {
+                    executionStrategy = (ConditionalExecutionStrategy)CompactXmlFormat.readValue(reader, context, mapper, null, CompactXmlFormat.STRATEGIES);
+                } else {
+                    LOGGER.log(Level.WARNING, "Ignored unknown element {0} in {1}", new Object[] {name, ConditionalPublisher.class.getName()});
+                }
+                reader.moveUp();
+            }
+            return new ConditionalPublisher(
+                    condition,
+                    (publisherList != null) ? publisherList : new ArrayList<BuildStep>(),
+                    (runner != null) ? runner : new BuildStepRunner.Fail(),
+                    aggregationCondition != null || aggregationRunner != null,
+                    aggregationCondition,
+                    aggregationRunner,
+                    (executionStrategy != null) ? executionStrategy : new FailAtEndExecutionStrategy()
+            ).readResolve();
+        }
+        
+        @Override
+        protected void callback(ConditionalPublisher obj, UnmarshallingContext context) {
+        }
+    }
 
     
     @Extension
@@ -347,6 +501,25 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
             return ConditionalExecutionStrategy.all();
         }
 
+        /**
+         * @param instance
+         * @return names of publishers in the group, shown in the summary of a collapsed group.
+         */
+        public String getPublisherNames(ConditionalPublisher instance) {
+            return FlexiblePublisher.getBuildStepShortName(instance.getPublisherList());
+        }
+
+        /**
+         * Posted with a collapsed group to identify the saved group,
+         * in the same way as {@link ConditionOutcomeAction#keyOf(RunCondition, BuildStepRunner)}.
+         * 
+         * @param instance
+         * @return the digest of the saved configuration of the group.
+         */
+        public String getCollapsedGroupDigest(ConditionalPublisher instance) {
+            return Util.getDigestOf(Items.XSTREAM2.toXML(instance));
+        }
+
         /**
          * Build a new instance from parameters a user input in a configuration page.
          * 
@@ -434,9 +607,7 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
                 throw new FormException("No $class or stapler-class is specified", fieldName);
             }
             try {
-                @SuppressWarnings("unchecked")
-                Class<? extends Describable<?>> clazz = (Class<? extends Describable<?>>)Jenkins.getInstance().getPluginManager().uberClassLoader.loadClass(clazzName);
-                Descriptor<?> d = Jenkins.getInstance().getDescriptorOrDie(clazz);
+                Descriptor<?> d = DescriptorCache.getDescriptorOrDie(clazzName);
                 return (BuildStep)d.newInstance(req, formData);
             } catch(ClassNotFoundException e) {
                 throw new FormException(
@@ -457,6 +628,8 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
         // Instead, I use DescribableList#buildDependencyGraph, which is a part of
         // Jenkins core and always work.
         // See JENKINS-25017 for details.
+      // Shared among publishers to have dependencies share the signature of the condition.
+      ConditionalDependencyGraphWrapper conditionalGraph = new ConditionalDependencyGraphWrapper(graph, compiledCondition, runner);
       for (BuildStep publisher: getPublisherList()) {
         if (publisher instanceof Publisher) {
             DescribableList<Publisher, Descriptor<Publisher>> lst = new DescribableList<Publisher, Descriptor<Publisher>>(
@@ -466,7 +639,7 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
                     },
                     Arrays.asList((Publisher)publisher)
             );
-            lst.buildDependencyGraph(owner, new ConditionalDependencyGraphWrapper(graph, condition, runner));
+            lst.buildDependencyGraph(owner, conditionalGraph);
         } else if (publisher instanceof Builder) {
             // Case used with Any Build Step plugin (https://wiki.jenkins-ci.org/display/JENKINS/Any+Build+Step+Plugin).
             DescribableList<Builder, Descriptor<Builder>> lst = new DescribableList<Builder, Descriptor<Builder>>(
@@ -476,10 +649,9 @@ public class ConditionalPublisher implements Describable<ConditionalPublisher>,
                     },
                     Arrays.asList((Builder)publisher)
             );
-            lst.buildDependencyGraph(owner, new ConditionalDependencyGraphWrapper(graph, condition, runner));
+            lst.buildDependencyGraph(owner, conditionalGraph);
         } else if (publisher instanceof DependecyDeclarer) {
-            ((DependecyDeclarer)publisher).buildDependencyGraph(owner,
-                    new ConditionalDependencyGraphWrapper(graph, condition, runner));
+            ((DependecyDeclarer)publisher).buildDependencyGraph(owner, conditionalGraph);
         } else {
             LOGGER.log(Level.WARNING, "May failed to build dependency for {0} in {1}", new Object[]{
                     publisher.getClass(),
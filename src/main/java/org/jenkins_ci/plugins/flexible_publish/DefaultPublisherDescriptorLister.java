@@ -25,6 +25,10 @@
 package org.jenkins_ci.plugins.flexible_publish;
 
 import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionListListener;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
 import hudson.model.AbstractProject;
 import hudson.model.Descriptor;
 import hudson.model.Hudson;
@@ -35,21 +39,46 @@ import org.kohsuke.stapler.DataBoundConstructor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DefaultPublisherDescriptorLister implements PublisherDescriptorLister {
 
-    private static final List<String> EXCLUSIONS = Arrays.asList(
+    private static final Set<String> EXCLUSIONS = new HashSet<String>(Arrays.asList(
             "org.jenkins_ci.plugins.flexible_publish.FlexiblePublisher.FlexiblePublisherDescriptor"
-        );
+        ));
+
+    /**
+     * Allowed publishers for each project class.
+     * Cleared when publishers are added or removed by loading plugins.
+     */
+    private static final ConcurrentMap<Class<?>, List<BuildStepDescriptor<? extends Publisher>>> CACHE
+            = new ConcurrentHashMap<Class<?>, List<BuildStepDescriptor<? extends Publisher>>>();
 
     @DataBoundConstructor
     public DefaultPublisherDescriptorLister() {
     }
 
+    /**
+     * @param project
+     * @return immutable list of publishers applicable to the class of the project.
+     */
     public List<? extends Descriptor<? extends BuildStep>> getAllowedPublishers(AbstractProject<?,?> project) {
+        if (project == null) return Collections.<BuildStepDescriptor<? extends Publisher>>emptyList();
+        List<BuildStepDescriptor<? extends Publisher>> publishers = CACHE.get(project.getClass());
+        if (publishers == null) {
+            publishers = Collections.unmodifiableList(collectAllowedPublishers(project));
+            CACHE.put(project.getClass(), publishers);
+        }
+        return publishers;
+    }
+
+    private static List<BuildStepDescriptor<? extends Publisher>> collectAllowedPublishers(AbstractProject<?,?> project) {
         final List<BuildStepDescriptor<? extends Publisher>> publishers = new ArrayList<BuildStepDescriptor<? extends Publisher>>();
-        if (project == null) return publishers;
         for (Descriptor<Publisher> descriptor : Publisher.all()) {
             if (!(descriptor instanceof BuildStepDescriptor)) continue;
             if (EXCLUSIONS.contains(descriptor.getClass().getCanonicalName())) continue;
@@ -62,6 +91,27 @@ public class DefaultPublisherDescriptorLister implements PublisherDescriptorList
         return publishers;
     }
 
+    /**
+     * Clears cached lists of allowed publishers.
+     */
+    public static void invalidateCache() {
+        CACHE.clear();
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void listenToPublishers() {
+        // descriptors cached by a previous Jenkins instance in the same JVM (e.g. in tests) are obsolete.
+        invalidateCache();
+        ExtensionListListener listener = new ExtensionListListener() {
+            @Override
+            public void onChange() {
+                invalidateCache();
+            }
+        };
+        Publisher.all().addListener(listener);
+        ExtensionList.lookup(Descriptor.class).addListener(listener);
+    }
+
     public DescriptorImpl getDescriptor() {
         return Hudson.getInstance().getDescriptorByType(DescriptorImpl.class);
     }
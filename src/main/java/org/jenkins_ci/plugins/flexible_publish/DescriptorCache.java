@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import jenkins.model.Jenkins;
+import hudson.ExtensionList;
+import hudson.ExtensionListListener;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+
+/**
+ * Caches descriptors looked up by class names when binding forms,
+ * not to look up classes through classloaders of all plugins for each entry.
+ * 
+ * Cleared when descriptors are added or removed by loading plugins.
+ */
+public class DescriptorCache {
+    private static final ConcurrentMap<String, Descriptor<?>> CACHE = new ConcurrentHashMap<String, Descriptor<?>>();
+    
+    private DescriptorCache() {
+    }
+    
+    /**
+     * @param className the name of a {@link Describable} class.
+     * @return the descriptor of the class.
+     * @throws ClassNotFoundException
+     * @throws AssertionError no descriptor for the class.
+     * @see Jenkins#getDescriptorOrDie(Class)
+     */
+    @SuppressWarnings("unchecked")
+    public static Descriptor<?> getDescriptorOrDie(String className) throws ClassNotFoundException {
+        Descriptor<?> d = CACHE.get(className);
+        if (d == null) {
+            Jenkins jenkins = Jenkins.get();
+            Class<? extends Describable<?>> clazz
+                = (Class<? extends Describable<?>>)jenkins.getPluginManager().uberClassLoader.loadClass(className);
+            d = jenkins.getDescriptorOrDie(clazz);
+            CACHE.put(className, d);
+        }
+        return d;
+    }
+    
+    /**
+     * @param clazz a {@link Describable} class.
+     * @return the descriptor of the class.
+     * @throws AssertionError no descriptor for the class.
+     * @see Jenkins#getDescriptorOrDie(Class)
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Describable<T>> Descriptor<T> getDescriptorOrDie(Class<T> clazz) {
+        Descriptor<?> d = CACHE.get(clazz.getName());
+        if (d == null) {
+            d = Jenkins.get().getDescriptorOrDie(clazz);
+            CACHE.put(clazz.getName(), d);
+        }
+        return (Descriptor<T>)d;
+    }
+    
+    public static void invalidate() {
+        CACHE.clear();
+    }
+    
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void listenToDescriptors() {
+        // descriptors cached by a previous Jenkins instance in the same JVM (e.g. in tests) are obsolete.
+        invalidate();
+        ExtensionList.lookup(Descriptor.class).addListener(new ExtensionListListener() {
+            @Override
+            public void onChange() {
+                invalidate();
+            }
+        });
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import hudson.model.Run;
+import hudson.tasks.BuildStep;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sf.json.JSONObject;
+
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction.StepResult;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+
+/**
+ * Writes events of flexible publish into {@value #FILENAME} in the build directory,
+ * one JSON object per line.
+ * 
+ * Disabled by default, as it writes a file for each build.
+ * Enable with the system property
+ * {@code org.jenkins_ci.plugins.flexible_publish.FlexiblePublishEventLog.enabled=true}.
+ * 
+ * Events are queued and written by a background thread not to block builds.
+ * Events are dropped when the queue is full, and counted in {@link #getDropped()}.
+ */
+public class FlexiblePublishEventLog {
+    private static final Logger LOGGER = Logger.getLogger(FlexiblePublishEventLog.class.getName());
+    
+    public static final String FILENAME = "flexible-publish-events.jsonl";
+    
+    /**
+     * Set {@code true} to enable the event log.
+     */
+    public static boolean ENABLED = Boolean.getBoolean(FlexiblePublishEventLog.class.getName() + ".enabled");
+    
+    private static final int QUEUE_SIZE = Integer.getInteger(FlexiblePublishEventLog.class.getName() + ".queueSize", 10000);
+    
+    private static final BlockingQueue<Entry> QUEUE = new LinkedBlockingQueue<Entry>(QUEUE_SIZE);
+    private static final AtomicBoolean SCHEDULED = new AtomicBoolean(false);
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), FlexiblePublishEventLog.class.getSimpleName())
+    );
+    
+    private static final Runnable DRAIN = new Runnable() {
+        @Override
+        public void run() {
+            do {
+                SCHEDULED.set(false);
+                drain();
+            } while (!QUEUE.isEmpty() && SCHEDULED.compareAndSet(false, true));
+        }
+    };
+    
+    private static class Entry {
+        private final File file;
+        private final JSONObject event;
+        
+        public Entry(File file, JSONObject event) {
+            this.file = file;
+            this.event = event;
+        }
+    }
+    
+    private FlexiblePublishEventLog() {
+    }
+    
+    /**
+     * Queues an event.
+     * 
+     * @param run
+     * @param type
+     * @param fields pairs of names and values. {@code null} values are omitted.
+     */
+    public static void log(Run<?, ?> run, String type, Object... fields) {
+        if (!ENABLED || run == null) {
+            return;
+        }
+        JSONObject event = new JSONObject();
+        event.put("time", System.currentTimeMillis());
+        event.put("job", run.getParent().getFullName());
+        event.put("build", run.getNumber());
+        event.put("type", type);
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            if (fields[i + 1] != null) {
+                event.put(fields[i].toString(), fields[i + 1]);
+            }
+        }
+        if (!QUEUE.offer(new Entry(new File(run.getRootDir(), FILENAME), event))) {
+            long dropped = DROPPED.incrementAndGet();
+            if (dropped % 1000 == 1) {
+                LOGGER.log(Level.WARNING, "Event log queue is full. {0} events are dropped so far.", dropped);
+            }
+            return;
+        }
+        if (SCHEDULED.compareAndSet(false, true)) {
+            WRITER.submit(DRAIN);
+        }
+    }
+    
+    public static void conditionDecided(Run<?, ?> run, RunCondition condition, List<BuildStep> publishers,
+            ConditionEvaluator.Evaluation evaluation) {
+        if (!ENABLED) {
+            return;
+        }
+        log(run, "condition",
+                "publishers", FlexiblePublisher.getBuildStepShortName(publishers),
+                "condition", (condition != null) ? condition.getDescriptor().getDisplayName() : null,
+                "outcome", evaluation.getOutcome().name(),
+                "run", evaluation.isRun(),
+                "exception", (evaluation.getException() != null) ? evaluation.getException().toString() : null
+        );
+    }
+    
+    public static void stepStarted(Run<?, ?> run, BuildStep buildStep) {
+        if (!ENABLED) {
+            return;
+        }
+        log(run, "stepStart",
+                "step", FlexiblePublisher.getBuildStepShortName(buildStep),
+                "class", buildStep.getClass().getName()
+        );
+    }
+    
+    public static void stepEnded(Run<?, ?> run, BuildStep buildStep, long nanos, StepResult result, Exception exception) {
+        if (!ENABLED) {
+            return;
+        }
+        log(run, "stepEnd",
+                "step", FlexiblePublisher.getBuildStepShortName(buildStep),
+                "class", buildStep.getClass().getName(),
+                "result", result.name(),
+                "durationMillis", TimeUnit.NANOSECONDS.toMillis(nanos),
+                "exception", (exception != null) ? exception.toString() : null
+        );
+    }
+    
+    /**
+     * @return the number of events dropped as the queue was full, since Jenkins started.
+     */
+    public static long getDropped() {
+        return DROPPED.get();
+    }
+    
+    /**
+     * Waits for queued events to be written.
+     * 
+     * @param timeout
+     * @param unit
+     * @throws InterruptedException
+     */
+    public static void flush(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            WRITER.submit(DRAIN).get(timeout, unit);
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.WARNING, "Failed to write events", e);
+        } catch (TimeoutException e) {
+            LOGGER.log(Level.WARNING, "Timed out to write events");
+        }
+    }
+    
+    /**
+     * Writes queued events, appending to files of each build at once.
+     * Runs only in the writer thread.
+     */
+    private static void drain() {
+        List<Entry> entries = new ArrayList<Entry>();
+        QUEUE.drainTo(entries);
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<File, List<JSONObject>> eventsPerFile = new LinkedHashMap<File, List<JSONObject>>();
+        for (Entry entry: entries) {
+            List<JSONObject> events = eventsPerFile.get(entry.file);
+            if (events == null) {
+                events = new ArrayList<JSONObject>();
+                eventsPerFile.put(entry.file, events);
+            }
+            events.add(entry.event);
+        }
+        for (Map.Entry<File, List<JSONObject>> e: eventsPerFile.entrySet()) {
+            try {
+                Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(e.getKey(), true), StandardCharsets.UTF_8));
+                try {
+                    for (JSONObject event: e.getValue()) {
+                        w.write(event.toString());
+                        w.write('\n');
+                    }
+                } finally {
+                    w.close();
+                }
+            } catch (IOException x) {
+                // the build may be deleted.
+                LOGGER.log(Level.WARNING, "Failed to write events to " + e.getKey(), x);
+            }
+        }
+    }
+}
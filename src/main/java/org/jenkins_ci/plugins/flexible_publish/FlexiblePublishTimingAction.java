@@ -0,0 +1,312 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator.Evaluation;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator.Outcome;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Describable;
+import hudson.model.InvisibleAction;
+import hudson.tasks.BuildStep;
+
+/**
+ * Records time spent in each {@link ConditionalPublisher} and each publisher in it.
+ * 
+ * Attached by {@link FlexiblePublisher#perform(AbstractBuild, hudson.Launcher, hudson.model.BuildListener)},
+ * and available via the remote API.
+ */
+@ExportedBean
+public class FlexiblePublishTimingAction extends InvisibleAction {
+    private final List<GroupTiming> groups = new ArrayList<GroupTiming>();
+    private transient GroupTiming current;
+    
+    /**
+     * How a publisher finished.
+     */
+    public static enum StepResult {
+        SUCCESS,
+        /**
+         * the publisher returned false.
+         */
+        FAILURE,
+        /**
+         * the publisher threw {@link hudson.AbortException}.
+         */
+        ABORTED,
+        /**
+         * the publisher threw another exception.
+         */
+        EXCEPTION,
+        /**
+         * the publisher didn't run.
+         */
+        NOT_RUN,
+    }
+    
+    /**
+     * Timings of a {@link ConditionalPublisher}.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class GroupTiming {
+        private final String name;
+        private String condition;
+        private long conditionNanos;
+        private Outcome outcome;
+        private long durationNanos;
+        private final List<StepTiming> steps = new ArrayList<StepTiming>();
+        private transient List<BuildStep> buildSteps;
+        private transient long start;
+        
+        public GroupTiming(String name, List<BuildStep> buildSteps) {
+            this.name = name;
+            this.buildSteps = buildSteps;
+            this.start = System.nanoTime();
+        }
+        
+        /**
+         * @return names of publishers.
+         */
+        @Exported
+        public String getName() {
+            return name;
+        }
+        
+        /**
+         * @return the display name of the condition.
+         */
+        @Exported
+        public String getCondition() {
+            return condition;
+        }
+        
+        @Exported
+        public long getConditionNanos() {
+            return conditionNanos;
+        }
+        
+        @Exported
+        public long getConditionMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(conditionNanos);
+        }
+        
+        /**
+         * @return the outcome of the condition. null if not evaluated.
+         */
+        @Exported
+        public Outcome getOutcome() {
+            return outcome;
+        }
+        
+        /**
+         * @return the time spent in the whole group, including the condition.
+         */
+        @Exported
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+        
+        @Exported
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+        
+        @Exported(inline = true)
+        public List<StepTiming> getSteps() {
+            return Collections.unmodifiableList(steps);
+        }
+    }
+    
+    /**
+     * Timing of a publisher.
+     */
+    @ExportedBean(defaultVisibility = 3)
+    public static class StepTiming {
+        private final String name;
+        private final String className;
+        /**
+         * {@code null} in builds recorded by older versions.
+         */
+        private final String descriptorId;
+        private final long durationNanos;
+        private final StepResult result;
+        
+        public StepTiming(BuildStep buildStep, long durationNanos, StepResult result) {
+            this.name = FlexiblePublisher.getBuildStepShortName(buildStep);
+            this.className = buildStep.getClass().getName();
+            this.descriptorId = (buildStep instanceof Describable)
+                    ? ((Describable<?>)buildStep).getDescriptor().getId()
+                    : className;
+            this.durationNanos = durationNanos;
+            this.result = result;
+        }
+        
+        /**
+         * @return the display name of the publisher.
+         */
+        @Exported
+        public String getName() {
+            return name;
+        }
+        
+        @Exported
+        public String getClassName() {
+            return className;
+        }
+        
+        /**
+         * @return the id of the descriptor of the publisher, not changed with locales. the class name if not describable.
+         */
+        @Exported
+        public String getDescriptorId() {
+            return (descriptorId != null) ? descriptorId : className;
+        }
+        
+        @Exported
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+        
+        @Exported
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+        
+        @Exported
+        public StepResult getResult() {
+            return result;
+        }
+        
+        @Exported
+        public boolean isSkipped() {
+            return result == StepResult.NOT_RUN;
+        }
+    }
+    
+    @Exported(inline = true)
+    public synchronized List<GroupTiming> getGroups() {
+        return Collections.unmodifiableList(new ArrayList<GroupTiming>(groups));
+    }
+    
+    /**
+     * @param build
+     * @return the action of the build. created if not exists.
+     */
+    public static FlexiblePublishTimingAction getOrCreate(AbstractBuild<?, ?> build) {
+        synchronized (build) {
+            FlexiblePublishTimingAction action = build.getAction(FlexiblePublishTimingAction.class);
+            if (action == null) {
+                action = new FlexiblePublishTimingAction();
+                build.addAction(action);
+            }
+            return action;
+        }
+    }
+    
+    /**
+     * Starts recording a group.
+     * 
+     * @param publisher
+     */
+    public synchronized void beginGroup(ConditionalPublisher publisher) {
+        current = new GroupTiming(
+                FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList()),
+                publisher.getPublisherList()
+        );
+        groups.add(current);
+    }
+    
+    /**
+     * Finishes recording the current group.
+     * Publishers not run are recorded as skipped.
+     */
+    public synchronized void endGroup() {
+        if (current == null) {
+            return;
+        }
+        current.durationNanos = System.nanoTime() - current.start;
+        List<StepTiming> steps = new ArrayList<StepTiming>(current.buildSteps.size());
+        int recorded = 0;
+        for (BuildStep buildStep: current.buildSteps) {
+            if (recorded < current.steps.size() && current.steps.get(recorded).className.equals(buildStep.getClass().getName())) {
+                steps.add(current.steps.get(recorded++));
+            } else {
+                steps.add(new StepTiming(buildStep, 0, StepResult.NOT_RUN));
+            }
+        }
+        current.steps.clear();
+        current.steps.addAll(steps);
+        current.buildSteps = null;
+        current = null;
+    }
+    
+    /**
+     * Records the evaluation of the condition of the current group.
+     * 
+     * @param build
+     * @param condition the display name of the condition.
+     * @param nanos
+     * @param evaluation
+     */
+    public static void recordCondition(AbstractBuild<?, ?> build, String condition, long nanos, Evaluation evaluation) {
+        FlexiblePublishTimingAction action = build.getAction(FlexiblePublishTimingAction.class);
+        if (action == null) {
+            return;
+        }
+        synchronized (action) {
+            if (action.current != null) {
+                action.current.condition = condition;
+                action.current.conditionNanos += nanos;
+                action.current.outcome = evaluation.getOutcome();
+            }
+        }
+    }
+    
+    /**
+     * Records a publisher in the current group.
+     * 
+     * @param build
+     * @param buildStep
+     * @param nanos
+     * @param result
+     */
+    public static void recordStep(AbstractBuild<?, ?> build, BuildStep buildStep, long nanos, StepResult result) {
+        FlexiblePublishTimingAction action = build.getAction(FlexiblePublishTimingAction.class);
+        if (action == null) {
+            return;
+        }
+        synchronized (action) {
+            if (action.current != null) {
+                action.current.steps.add(new StepTiming(buildStep, nanos, result));
+            }
+        }
+    }
+}
@@ -45,34 +45,49 @@ import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
+import hudson.util.XStream2;
 import jenkins.model.DependencyDeclarer;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 
 import org.apache.commons.lang.StringUtils;
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.EvaluationScope;
+import org.jenkins_ci.plugins.flexible_publish.condition.WorkspaceProbe;
+import org.jenkins_ci.plugins.flexible_publish.metrics.FlexiblePublishMetrics;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Lists;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import com.thoughtworks.xstream.mapper.Mapper;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import jenkins.model.Jenkins;
-
 public class FlexiblePublisher extends Recorder implements DependencyDeclarer, MatrixAggregatable {
 
     public static final String PROMOTION_JOB_TYPE = "hudson.plugins.promoted_builds.PromotionProcess";
     private static final Logger LOGGER = Logger.getLogger(FlexiblePublisher.class.getName());
 
     private List<ConditionalPublisher> publishers;
+    private boolean preEvaluateConditions;
+    private boolean bufferConsoleOutput;
+    private boolean separateStepLogs;
 
     /**
      * @param publishers
@@ -87,6 +102,45 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
         return publishers;
     }
 
+    /**
+     * @return whether to evaluate conditions of all groups at the same time before running publishers.
+     * @see ConditionPreEvaluator
+     */
+    public boolean isPreEvaluateConditions() {
+        return preEvaluateConditions;
+    }
+
+    @DataBoundSetter
+    public void setPreEvaluateConditions(boolean preEvaluateConditions) {
+        this.preEvaluateConditions = preEvaluateConditions;
+    }
+
+    /**
+     * @return whether to write outputs of each conditional action to the console at once when the action finishes.
+     * @see GroupOutputBuffer
+     */
+    public boolean isBufferConsoleOutput() {
+        return bufferConsoleOutput;
+    }
+
+    @DataBoundSetter
+    public void setBufferConsoleOutput(boolean bufferConsoleOutput) {
+        this.bufferConsoleOutput = bufferConsoleOutput;
+    }
+
+    /**
+     * @return whether to write outputs of each publisher to a separate file in the build directory.
+     * @see StepLogAction
+     */
+    public boolean isSeparateStepLogs() {
+        return separateStepLogs;
+    }
+
+    @DataBoundSetter
+    public void setSeparateStepLogs(boolean separateStepLogs) {
+        this.separateStepLogs = separateStepLogs;
+    }
+
     public BuildStepMonitor getRequiredMonitorService() {
         final Set<BuildStepMonitor> monitors = new HashSet<BuildStepMonitor>();
         for (ConditionalPublisher cp : publishers) {
@@ -104,6 +158,7 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
         final List<Action> actions = new ArrayList<Action>();
         for (ConditionalPublisher publisher : publishers)
             actions.addAll(publisher.getProjectActions(project));
+        actions.add(new PublisherDurationAction(project));
         return actions;
     }
 
@@ -118,35 +173,92 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
     @Override
     public boolean perform(final AbstractBuild<?, ?> build, final Launcher launcher, final BuildListener listener)
                                                                                                 throws InterruptedException, IOException {
-        boolean wholeResult = true;
+        // conditions of all groups share the environment of the build.
+        EvaluationScope scope = EvaluationScope.open(build);
+        try {
+            return performGroups(build, launcher, listener);
+        } finally {
+            scope.close();
+        }
+    }
+
+    private boolean performGroups(final AbstractBuild<?, ?> build, final Launcher launcher, final BuildListener listener)
+                                                                                                throws InterruptedException, IOException {
+        List<CompiledCondition> conditions = new ArrayList<CompiledCondition>(publishers.size());
         for (ConditionalPublisher publisher : publishers) {
-            try {
-                if (!publisher.perform(build, launcher, listener))
-                {
-                    // error logs should be printed in ConditionalPublisher (or ConditionalExecutionStrategy)
+            conditions.add(publisher.getCompiledCondition());
+        }
+        // file conditions of all groups are resolved at once when the first one is evaluated.
+        WorkspaceProbe.prepare(build, conditions);
+        if (isPreEvaluateConditions()) {
+            conditions = ConditionPreEvaluator.preEvaluate(publishers, build, listener);
+        }
+        
+        long start = System.nanoTime();
+        FlexiblePublishEventLog.log(build, "publishStart", "groups", publishers.size());
+        FlexiblePublishTimingAction timing = FlexiblePublishTimingAction.getOrCreate(build);
+        StepLogAction stepLogs = isSeparateStepLogs() ? StepLogAction.getOrCreate(build) : null;
+        if (stepLogs != null) {
+            stepLogs.setActive(true);
+        }
+        boolean wholeResult = true;
+        boolean completed = false;
+        try {
+            for (int i = 0; i < publishers.size(); ++i) {
+                ConditionalPublisher publisher = publishers.get(i);
+                timing.beginGroup(publisher);
+                GroupOutputBuffer buffer = isBufferConsoleOutput() ? GroupOutputBuffer.create(build) : null;
+                BuildListener groupListener = (buffer != null) ? buffer.getListener() : listener;
+                try {
+                    if (!publisher.perform(build, launcher, groupListener, conditions.get(i)))
+                    {
+                        // error logs should be printed in ConditionalPublisher (or ConditionalExecutionStrategy)
+                        wholeResult = false;
+                    }
+                } catch(AbortException e) {
+                    // This code doesn't run
+                    // as Exceptions should be handled in ConditionalPublisher (or ConditionalExecutionStrategy)
+                    groupListener.error(String.format(
+                            "[flexible-publish] %s aborted: %s",
+                            FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList()),
+                            e.getMessage()
+                    ));
+                    LOGGER.log(Level.FINE, "[flexible-publish] %s aborted", e); // for diagnostic purpose.
+                    build.setResult(Result.FAILURE);
+                    wholeResult = false;
+                } catch(Exception e) {
+                    // This code doesn't run
+                    // as Exceptions should be handled in ConditionalPublisher (or ConditionalExecutionStrategy)
+                    e.printStackTrace(groupListener.error(String.format(
+                            "[flexible-publish] %s aborted due to exception",
+                            FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList())
+                    )));
+                    build.setResult(Result.FAILURE);
                     wholeResult = false;
+                } finally {
+                    timing.endGroup();
+                    if (buffer != null) {
+                        try {
+                            buffer.flushTo(listener);
+                        } catch (IOException e) {
+                            e.printStackTrace(listener.error(String.format(
+                                    "[flexible-publish] failed to write outputs of %s",
+                                    FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList())
+                            )));
+                        } finally {
+                            buffer.close();
+                        }
+                    }
                 }
-            } catch(AbortException e) {
-                // This code doesn't run
-                // as Exceptions should be handled in ConditionalPublisher (or ConditionalExecutionStrategy)
-                listener.error(String.format(
-                        "[flexible-publish] %s aborted: %s",
-                        FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList()),
-                        e.getMessage()
-                ));
-                LOGGER.log(Level.FINE, "[flexible-publish] %s aborted", e); // for diagnostic purpose.
-                build.setResult(Result.FAILURE);
-                wholeResult = false;
-            } catch(Exception e) {
-                // This code doesn't run
-                // as Exceptions should be handled in ConditionalPublisher (or ConditionalExecutionStrategy)
-                e.printStackTrace(listener.error(String.format(
-                        "[flexible-publish] %s aborted due to exception",
-                        FlexiblePublisher.getBuildStepShortName(publisher.getPublisherList())
-                )));
-                build.setResult(Result.FAILURE);
-                wholeResult = false;
             }
+            completed = true;
+        } finally {
+            if (stepLogs != null) {
+                stepLogs.setActive(false);
+            }
+            // recorded also when aborted (e.g. InterruptedException), as a failure.
+            FlexiblePublishMetrics.get().performed(System.nanoTime() - start);
+            FlexiblePublishEventLog.log(build, "publishEnd", "result", wholeResult && completed);
         }
         return wholeResult;
     }
@@ -168,6 +280,27 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
     @Extension(ordinal = Integer.MAX_VALUE - 500)
     public static class FlexiblePublisherDescriptor extends BuildStepDescriptor<Publisher> {
 
+        /**
+         * Condition groups are collapsed in the configuration page
+         * when a job has at least this number of groups.
+         * Collapsing is disabled with 0.
+         */
+        public static int COLLAPSE_GROUPS_THRESHOLD = Integer.getInteger(
+                FlexiblePublisher.class.getName() + ".collapseGroupsThreshold",
+                10
+        );
+
+        /**
+         * Posted instead of the configuration of a group not expanded by the user.
+         */
+        static final String COLLAPSED_GROUP_INDEX = "collapsedGroupIndex";
+
+        /**
+         * Posted with {@link #COLLAPSED_GROUP_INDEX} to detect the group was changed after the page was rendered.
+         * @see ConditionalPublisher.ConditionalPublisherDescriptor#getCollapsedGroupDigest(ConditionalPublisher)
+         */
+        static final String COLLAPSED_GROUP_DIGEST = "collapsedGroupDigest";
+
         public static DescriptorExtensionList<PublisherDescriptorLister, Descriptor<PublisherDescriptorLister>>
                                                                                         getAllPublisherDescriptorListers() {
             return Hudson.getInstance().<PublisherDescriptorLister, Descriptor<PublisherDescriptorLister>>
@@ -175,6 +308,10 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
         }
 
         private PublisherDescriptorLister publisherLister;
+        
+        private List<SlowPublisherThreshold> slowPublisherThresholds;
+        
+        private transient volatile Map<String, Long> slowPublisherThresholdNanos = Collections.emptyMap();
 
         @DataBoundConstructor
         public FlexiblePublisherDescriptor(final PublisherDescriptorLister publisherLister) {
@@ -185,17 +322,60 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
             load();
             if (publisherLister == null)
                 publisherLister = new DefaultPublisherDescriptorLister();
+            updateSlowPublisherThresholdNanos();
         }
 
         public PublisherDescriptorLister getPublisherLister() {
             return publisherLister;
         }
+        
+        /**
+         * @return thresholds to report slow publishers.
+         * @see SlowPublisherDetector
+         */
+        public List<SlowPublisherThreshold> getSlowPublisherThresholds() {
+            return (slowPublisherThresholds != null)
+                    ? Collections.unmodifiableList(slowPublisherThresholds)
+                    : Collections.<SlowPublisherThreshold>emptyList();
+        }
+        
+        @DataBoundSetter
+        public void setSlowPublisherThresholds(List<SlowPublisherThreshold> slowPublisherThresholds) {
+            this.slowPublisherThresholds = (slowPublisherThresholds != null)
+                    ? new ArrayList<SlowPublisherThreshold>(slowPublisherThresholds)
+                    : null;
+            updateSlowPublisherThresholdNanos();
+        }
+        
+        /**
+         * @param buildStep
+         * @return the threshold to report the build step as slow. 0 if not configured.
+         */
+        public long getSlowPublisherThresholdNanos(BuildStep buildStep) {
+            String key = SlowPublisherThreshold.keyOf(buildStep);
+            if (key == null) {
+                return 0;
+            }
+            Long nanos = slowPublisherThresholdNanos.get(key);
+            return (nanos != null) ? nanos : 0;
+        }
+        
+        private void updateSlowPublisherThresholdNanos() {
+            Map<String, Long> nanos = new HashMap<String, Long>();
+            for (SlowPublisherThreshold threshold: getSlowPublisherThresholds()) {
+                if (threshold.getPublisher() != null && threshold.getThresholdSeconds() > 0) {
+                    nanos.put(threshold.getPublisher(), threshold.getThresholdNanos());
+                }
+            }
+            slowPublisherThresholdNanos = Collections.unmodifiableMap(nanos);
+        }
 
         @Override
         public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
             final FlexiblePublisherDescriptor newConfig = req.bindJSON(FlexiblePublisherDescriptor.class, json);
             if (newConfig.publisherLister != null)
                 publisherLister = newConfig.publisherLister;
+            setSlowPublisherThresholds(newConfig.slowPublisherThresholds);
             save();
             return true;
         }
@@ -214,9 +394,29 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
         public Object readResolve() {
             if (publisherLister == null)
                 publisherLister = new DefaultPublisherDescriptorLister();
+            updateSlowPublisherThresholdNanos();
             return this;
         }
 
+        /**
+         * Groups to render collapsed in the configuration page.
+         * 
+         * Only the summary of a collapsed group is rendered with the page,
+         * and its body is rendered on demand when the user expands it.
+         * 
+         * @param instance
+         * @return groups to collapse. {@code null} to render all groups.
+         */
+        public List<ConditionalPublisher> getCollapsedGroups(FlexiblePublisher instance) {
+            if (instance == null || instance.getPublishers() == null) {
+                return null;
+            }
+            if (COLLAPSE_GROUPS_THRESHOLD <= 0 || instance.getPublishers().size() < COLLAPSE_GROUPS_THRESHOLD) {
+                return null;
+            }
+            return instance.getPublishers();
+        }
+
         /**
          * Build a new instance from parameters a user input in a configuration page.
          * 
@@ -243,16 +443,55 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
             if (formData != null) {
                 JSONArray a = JSONArray.fromObject(formData.get("publishers"));
                 if (a != null && !a.isEmpty()) {
-                    @SuppressWarnings("unchecked")
-                    Descriptor<ConditionalPublisher> d = Jenkins.getInstance().getDescriptorOrDie(ConditionalPublisher.class);
+                    Descriptor<ConditionalPublisher> d = DescriptorCache.getDescriptorOrDie(ConditionalPublisher.class);
                     publishers = new ArrayList<ConditionalPublisher>(a.size());
                     for(int idx = 0; idx < a.size(); ++idx) {
-                        publishers.add(d.newInstance(req, a.getJSONObject(idx)));
+                        JSONObject o = a.getJSONObject(idx);
+                        if (o.has(COLLAPSED_GROUP_INDEX)) {
+                            publishers.add(getCollapsedGroup(
+                                    req,
+                                    (ConditionalPublisher.ConditionalPublisherDescriptor)d,
+                                    o.getInt(COLLAPSED_GROUP_INDEX),
+                                    o.optString(COLLAPSED_GROUP_DIGEST)
+                            ));
+                        } else {
+                            publishers.add(d.newInstance(req, o));
+                        }
                     }
                 }
             }
             
-            return new FlexiblePublisher(publishers);
+            FlexiblePublisher publisher = new FlexiblePublisher(publishers);
+            if (formData != null) {
+                publisher.setPreEvaluateConditions(formData.optBoolean("preEvaluateConditions"));
+                publisher.setBufferConsoleOutput(formData.optBoolean("bufferConsoleOutput"));
+                publisher.setSeparateStepLogs(formData.optBoolean("separateStepLogs"));
+            }
+            return publisher;
+        }
+
+        /**
+         * Returns the saved group for a group the user didn't expand.
+         * 
+         * @param req
+         * @param d
+         * @param index the index of the group when the configuration page was rendered.
+         * @param digest the digest of the group when the configuration page was rendered.
+         * @return the saved group.
+         * @throws hudson.model.Descriptor.FormException the job was reconfigured after the page was rendered.
+         * @see #getCollapsedGroups(FlexiblePublisher)
+         */
+        private ConditionalPublisher getCollapsedGroup(StaplerRequest req,
+                ConditionalPublisher.ConditionalPublisherDescriptor d, int index, String digest)
+                throws hudson.model.Descriptor.FormException {
+            AbstractProject<?, ?> project = (req != null) ? req.findAncestorObject(AbstractProject.class) : null;
+            FlexiblePublisher current = (project != null) ? project.getPublishersList().get(FlexiblePublisher.class) : null;
+            List<ConditionalPublisher> groups = (current != null) ? current.getPublishers() : null;
+            if (groups == null || index < 0 || index >= groups.size()
+                    || !d.getCollapsedGroupDigest(groups.get(index)).equals(digest)) {
+                throw new FormException(Messages.flexiblePublisher_collapsedGroupNotFound(), "publishers");
+            }
+            return groups.get(index);
         }
     }
 
@@ -301,6 +540,91 @@ public class FlexiblePublisher extends Recorder implements DependencyDeclarer, M
                 build, launcher, listener, aggregatorList
         );
     }
+    /**
+     * Writes in {@link CompactXmlFormat} if enabled, and reads both the compact and the legacy formats.
+     * 
+     * {@link ConditionalPublisher}s are written as {@code <conditional>} elements.
+     */
+    public static final class ConverterImpl extends XStream2.PassthruConverter<FlexiblePublisher> {
+        private static final String CONDITIONAL = "conditional";
+        private final Mapper mapper;
+        
+        public ConverterImpl(XStream2 xstream) {
+            super(xstream);
+            this.mapper = xstream.getMapper();
+        }
+        
+        @Override
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            if (!CompactXmlFormat.ENABLED) {
+                super.marshal(source, writer, context);
+                return;
+            }
+            FlexiblePublisher p = (FlexiblePublisher)source;
+            CompactXmlFormat.writeFormat(writer);
+            if (p.publishers != null) {
+                writer.startNode("publishers");
+                for (ConditionalPublisher publisher: p.publishers) {
+                    writer.startNode(CONDITIONAL);
+                    context.convertAnother(publisher);
+                    writer.endNode();
+                }
+                writer.endNode();
+            }
+            writeFlag(writer, "preEvaluateConditions", p.preEvaluateConditions);
+            writeFlag(writer, "bufferConsoleOutput", p.bufferConsoleOutput);
+            writeFlag(writer, "separateStepLogs", p.separateStepLogs);
+        }
+        
+        private static void writeFlag(HierarchicalStreamWriter writer, String name, boolean value) {
+            if (value) {
+                writer.startNode(name);
+                writer.setValue(Boolean.toString(value));
+                writer.endNode();
+            }
+        }
+        
+        @Override
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            if (!CompactXmlFormat.isCompact(reader)) {
+                return super.unmarshal(reader, context);
+            }
+            FlexiblePublisher p = new FlexiblePublisher(null);
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                String name = reader.getNodeName();
+                if ("publishers".equals(name)) {
+                    List<ConditionalPublisher> publishers = new ArrayList<ConditionalPublisher>();
+                    while (reader.hasMoreChildren()) {
+                        reader.moveDown();
+                        if (CONDITIONAL.equals(reader.getNodeName())) {
+                            publishers.add((ConditionalPublisher)context.convertAnother(p, ConditionalPublisher.class));
+                        } else {
+                            // written by other tools with the class name.
+                            publishers.add((ConditionalPublisher)context.convertAnother(p, mapper.realClass(reader.getNodeName())));
+                        }
+                        reader.moveUp();
+                    }
+                    p.publishers = publishers;
+                } else if ("preEvaluateConditions".equals(name)) {
+                    p.preEvaluateConditions = Boolean.parseBoolean(reader.getValue().trim());
+                } else if ("bufferConsoleOutput".equals(name)) {
+                    p.bufferConsoleOutput = Boolean.parseBoolean(reader.getValue().trim());
+                } else if ("separateStepLogs".equals(name)) {
+                    p.separateStepLogs = Boolean.parseBoolean(reader.getValue().trim());
+                } else {
+                    LOGGER.log(Level.WARNING, "Ignored unknown element {0} in {1}", new Object[] {name, FlexiblePublisher.class.getName()});
+                }
+                reader.moveUp();
+            }
+            return p;
+        }
+        
+        @Override
+        protected void callback(FlexiblePublisher obj, UnmarshallingContext context) {
+        }
+    }
+    
     public static String getBuildStepDetailedName(BuildStep s) {
         if (s instanceof Describable) {
             return String.format("%s (%s)", ((Describable<?>)s).getDescriptor().getDisplayName(), s.toString());
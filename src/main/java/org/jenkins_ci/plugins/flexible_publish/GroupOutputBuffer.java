@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Captures outputs of a conditional action into a temporary file,
+ * and writes them to the console as one block when the action finishes.
+ * 
+ * Outputs of an action are not interleaved with outputs of others,
+ * and publishers don't contend for the console stream while running.
+ * 
+ * @see FlexiblePublisher#isBufferConsoleOutput()
+ */
+public class GroupOutputBuffer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(GroupOutputBuffer.class.getName());
+    
+    private final File file;
+    private final FileOutputStream out;
+    private final StreamBuildListener listener;
+    
+    private GroupOutputBuffer(File file, AbstractBuild<?, ?> build) throws IOException {
+        this.file = file;
+        this.out = new FileOutputStream(file);
+        this.listener = new StreamBuildListener(out, build.getCharset());
+    }
+    
+    /**
+     * @param build
+     * @return a new buffer. {@code null} if failed to create the temporary file.
+     */
+    public static GroupOutputBuffer create(AbstractBuild<?, ?> build) {
+        File file = null;
+        try {
+            file = File.createTempFile("flexible-publish", ".log");
+            return new GroupOutputBuffer(file, build);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to create a buffer for console outputs. Outputs are written directly.", e);
+            if (file != null && !file.delete()) {
+                LOGGER.log(Level.FINE, "Failed to delete {0}", file);
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * @return the listener publishers write to.
+     */
+    public BuildListener getListener() {
+        return listener;
+    }
+    
+    /**
+     * Writes the captured outputs to the listener at once.
+     * Outputs from others are blocked while writing.
+     * 
+     * @param target
+     * @throws IOException
+     */
+    public void flushTo(BuildListener target) throws IOException {
+        listener.getLogger().flush();
+        PrintStream logger = target.getLogger();
+        InputStream in = new FileInputStream(file);
+        try {
+            // PrintStream locks itself for each write.
+            synchronized (logger) {
+                IOUtils.copy(in, logger);
+                logger.flush();
+            }
+        } finally {
+            in.close();
+        }
+    }
+    
+    /**
+     * Discards the temporary file.
+     */
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(out);
+        if (!file.delete()) {
+            LOGGER.log(Level.WARNING, "Failed to delete {0}", file);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+import jenkins.security.ImpersonatingExecutorService;
+
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+import org.kohsuke.stapler.interceptor.RequirePOST;
+
+import hudson.Extension;
+import hudson.matrix.MatrixConfiguration;
+import hudson.model.AbstractProject;
+import hudson.model.ManagementLink;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.xml.XppDriver;
+
+/**
+ * Saves configurations of all projects containing {@link ConditionalPublisher}s
+ * in legacy shapes at once.
+ * 
+ * Legacy shapes (the single {@code publisher} of 0.12, {@code null} in {@code publisherList},
+ * missing {@code runner} or {@code executionStrategy}) are migrated by {@link ConditionalPublisher#readResolve()}
+ * each time they are loaded, and saving them makes the migration permanent.
+ * Elements in {@link CompactXmlFormat} omit defaults on purpose and are never legacy.
+ */
+@Extension
+public class LegacyConfigMigration extends ManagementLink {
+    private static final Logger LOGGER = Logger.getLogger(LegacyConfigMigration.class.getName());
+    
+    private static final String FLEXIBLE_PUBLISHER_ELEMENT = "org.jenkins__ci.plugins.flexible__publish.FlexiblePublisher";
+    
+    private static final int THREADS = Math.max(1, Integer.getInteger(
+            LegacyConfigMigration.class.getName() + ".threads",
+            Runtime.getRuntime().availableProcessors()
+    ));
+    
+    /**
+     * Shared among migrations, as a migration may be started while another is still running via {@link #migrate(boolean)}.
+     */
+    private static final ExecutorService POOL = createPool();
+    
+    private volatile Report report;
+    
+    /**
+     * Results of a migration.
+     */
+    @ExportedBean
+    public static class Report {
+        private final boolean dryRun;
+        private final long startTime = System.currentTimeMillis();
+        private volatile long endTime;
+        private final AtomicInteger scanned = new AtomicInteger();
+        private final List<Entry> entries = new ArrayList<Entry>();
+        
+        public Report(boolean dryRun) {
+            this.dryRun = dryRun;
+        }
+        
+        /**
+         * @return whether projects are only checked and not saved.
+         */
+        @Exported
+        public boolean isDryRun() {
+            return dryRun;
+        }
+        
+        @Exported
+        public long getStartTime() {
+            return startTime;
+        }
+        
+        /**
+         * @return 0 if running.
+         */
+        @Exported
+        public long getEndTime() {
+            return endTime;
+        }
+        
+        @Exported
+        public boolean isRunning() {
+            return endTime == 0;
+        }
+        
+        /**
+         * @return the number of projects containing {@link FlexiblePublisher} checked so far.
+         */
+        @Exported
+        public int getScanned() {
+            return scanned.get();
+        }
+        
+        /**
+         * @return projects in legacy formats.
+         */
+        @Exported
+        public synchronized List<Entry> getEntries() {
+            return Collections.unmodifiableList(new ArrayList<Entry>(entries));
+        }
+        
+        /**
+         * @return the number of projects still in legacy formats.
+         */
+        @Exported
+        public synchronized int getRemaining() {
+            int remaining = 0;
+            for (Entry e: entries) {
+                if (e.getStatus() != Status.MIGRATED) {
+                    ++remaining;
+                }
+            }
+            return remaining;
+        }
+        
+        private synchronized void add(Entry entry) {
+            entries.add(entry);
+        }
+        
+        private void finish() {
+            endTime = System.currentTimeMillis();
+            LOGGER.log(Level.INFO, "Migrated legacy configurations of {0} projects: {1} remaining", new Object[] {
+                    getEntries().size() - getRemaining(),
+                    getRemaining(),
+            });
+        }
+    }
+    
+    public static enum Status {
+        /**
+         * In a legacy format and not saved as it is a dry run.
+         */
+        LEGACY,
+        MIGRATED,
+        FAILED,
+    }
+    
+    /**
+     * A project in a legacy format.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class Entry {
+        private final String project;
+        private final int legacyElements;
+        private final Status status;
+        private final String message;
+        
+        public Entry(String project, int legacyElements, Status status, String message) {
+            this.project = project;
+            this.legacyElements = legacyElements;
+            this.status = status;
+            this.message = message;
+        }
+        
+        /**
+         * @return the full name of the project.
+         */
+        @Exported
+        public String getProject() {
+            return project;
+        }
+        
+        /**
+         * @return the number of {@link ConditionalPublisher} elements in legacy shapes before the migration.
+         */
+        @Exported
+        public int getLegacyElements() {
+            return legacyElements;
+        }
+        
+        @Exported
+        public Status getStatus() {
+            return status;
+        }
+        
+        /**
+         * @return the error. null if not failed.
+         */
+        @Exported
+        public String getMessage() {
+            return message;
+        }
+    }
+    
+    private static ExecutorService createPool() {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                THREADS,
+                THREADS,
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "FlexiblePublisher legacy config migration")
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return new ImpersonatingExecutorService(pool, ACL.SYSTEM);
+    }
+    
+    /**
+     * @param xml
+     * @return the number of {@link ConditionalPublisher} elements in legacy shapes.
+     */
+    public static int countLegacyElements(String xml) {
+        HierarchicalStreamReader reader = new XppDriver().createReader(new StringReader(xml));
+        try {
+            if (FLEXIBLE_PUBLISHER_ELEMENT.equals(reader.getNodeName())) {
+                return countLegacyPublishers(reader);
+            }
+            return countLegacyElements(reader);
+        } finally {
+            reader.close();
+        }
+    }
+    
+    private static int countLegacyElements(HierarchicalStreamReader reader) {
+        int count = 0;
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            if (FLEXIBLE_PUBLISHER_ELEMENT.equals(reader.getNodeName())) {
+                count += countLegacyPublishers(reader);
+            } else {
+                count += countLegacyElements(reader);
+            }
+            reader.moveUp();
+        }
+        return count;
+    }
+    
+    /**
+     * @param reader at a {@link FlexiblePublisher} element
+     */
+    private static int countLegacyPublishers(HierarchicalStreamReader reader) {
+        int count = 0;
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            if ("publishers".equals(reader.getNodeName())) {
+                while (reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    if (isLegacy(reader)) {
+                        ++count;
+                    }
+                    reader.moveUp();
+                }
+            }
+            reader.moveUp();
+        }
+        return count;
+    }
+    
+    /**
+     * @param reader at a {@link ConditionalPublisher} element
+     * @return whether {@link ConditionalPublisher#readResolve()} has to migrate the element.
+     */
+    private static boolean isLegacy(HierarchicalStreamReader reader) {
+        if (CompactXmlFormat.isCompact(reader)) {
+            return false;
+        }
+        boolean legacy = false;
+        boolean hasRunner = false;
+        boolean hasExecutionStrategy = false;
+        while (reader.hasMoreChildren()) {
+            reader.moveDown();
+            String name = reader.getNodeName();
+            if ("publisher".equals(name)) {
+                legacy = true;
+            } else if ("runner".equals(name)) {
+                hasRunner = true;
+            } else if ("executionStrategy".equals(name)) {
+                hasExecutionStrategy = true;
+            } else if ("publisherList".equals(name)) {
+                while (reader.hasMoreChildren()) {
+                    reader.moveDown();
+                    if ("null".equals(reader.getNodeName())) {
+                        legacy = true;
+                    }
+                    reader.moveUp();
+                }
+            }
+            reader.moveUp();
+        }
+        return legacy || !hasRunner || !hasExecutionStrategy;
+    }
+    
+    /**
+     * @return the last report. null if never run.
+     */
+    public Report getReport() {
+        return report;
+    }
+    
+    /**
+     * Starts the migration in background.
+     * 
+     * @param dryRun only checks projects without saving them.
+     * @return redirects to the report.
+     */
+    @RequirePOST
+    public synchronized HttpResponse doMigrate(@QueryParameter boolean dryRun) {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        if (report != null && report.isRunning()) {
+            return HttpResponses.redirectToDot();
+        }
+        report = migrate(dryRun);
+        return HttpResponses.redirectToDot();
+    }
+    
+    /**
+     * Starts the migration in background.
+     * 
+     * @param dryRun only checks projects without saving them.
+     * @return the report updated as projects are processed.
+     */
+    public static Report migrate(final boolean dryRun) {
+        final Report report = new Report(dryRun);
+        List<AbstractProject<?, ?>> projects = new ArrayList<AbstractProject<?, ?>>();
+        for (AbstractProject<?, ?> project: Jenkins.get().getAllItems(AbstractProject.class)) {
+            if (project instanceof MatrixConfiguration) {
+                // saved with the parent.
+                continue;
+            }
+            if (project.getPublishersList().get(FlexiblePublisher.class) != null) {
+                projects.add(project);
+            }
+        }
+        if (projects.isEmpty()) {
+            report.finish();
+            return report;
+        }
+        final AtomicInteger pending = new AtomicInteger(projects.size());
+        for (final AbstractProject<?, ?> project: projects) {
+            POOL.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        migrate(project, report);
+                    } finally {
+                        if (pending.decrementAndGet() == 0) {
+                            report.finish();
+                        }
+                    }
+                }
+            });
+        }
+        return report;
+    }
+    
+    private static void migrate(AbstractProject<?, ?> project, Report report) {
+        try {
+            int legacyElements = countLegacyElements(project.getConfigFile().asString());
+            if (legacyElements <= 0) {
+                return;
+            }
+            if (report.isDryRun()) {
+                report.add(new Entry(project.getFullName(), legacyElements, Status.LEGACY, null));
+                return;
+            }
+            // readResolve() already migrated the configuration in memory.
+            project.save();
+            if (countLegacyElements(project.getConfigFile().asString()) > 0) {
+                report.add(new Entry(project.getFullName(), legacyElements, Status.FAILED, "Still in a legacy shape after saved"));
+                return;
+            }
+            report.add(new Entry(project.getFullName(), legacyElements, Status.MIGRATED, null));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to migrate " + project.getFullName(), e);
+            report.add(new Entry(project.getFullName(), 0, Status.FAILED, e.toString()));
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to migrate " + project.getFullName(), e);
+            report.add(new Entry(project.getFullName(), 0, Status.FAILED, e.toString()));
+        } finally {
+            report.scanned.incrementAndGet();
+        }
+    }
+    
+    @Override
+    public String getIconFileName() {
+        return "setting.png";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return Messages.legacyConfigMigration_displayName();
+    }
+    
+    @Override
+    public String getDescription() {
+        return Messages.legacyConfigMigration_description();
+    }
+    
+    @Override
+    public String getUrlName() {
+        return "flexible-publish-migration";
+    }
+}
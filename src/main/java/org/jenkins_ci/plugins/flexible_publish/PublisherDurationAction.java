@@ -0,0 +1,219 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.matrix.MatrixProject;
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.Descriptor;
+import hudson.model.Job;
+import jenkins.model.Jenkins;
+
+/**
+ * Shows percentiles of durations of publishers in recent builds.
+ * 
+ * Computed from {@link PublisherDurationHistory} without loading builds.
+ * For matrix projects, durations are recorded for runs of each configuration
+ * and combined here.
+ */
+@ExportedBean
+public class PublisherDurationAction implements Action {
+    private final AbstractProject<?, ?> project;
+    private List<PublisherDurationHistory.BuildDurations> builds;
+    private long stamp;
+    
+    public PublisherDurationAction(AbstractProject<?, ?> project) {
+        this.project = project;
+    }
+    
+    public AbstractProject<?, ?> getProject() {
+        return project;
+    }
+    
+    /**
+     * Statistics of a publisher.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class PublisherDurations {
+        private final String id;
+        private final long[] sortedNanos;
+        
+        /**
+         * @param id the id of the descriptor of the publisher.
+         * @param nanos
+         */
+        public PublisherDurations(String id, List<Long> nanos) {
+            this.id = id;
+            this.sortedNanos = new long[nanos.size()];
+            for (int i = 0; i < nanos.size(); ++i) {
+                sortedNanos[i] = nanos.get(i);
+            }
+            Arrays.sort(sortedNanos);
+        }
+        
+        @Exported
+        public String getId() {
+            return id;
+        }
+        
+        /**
+         * @return the display name of the publisher in the current locale. the id if not installed.
+         */
+        @Exported
+        public String getName() {
+            Jenkins jenkins = Jenkins.getInstanceOrNull();
+            Descriptor<?> d = (jenkins != null) ? jenkins.getDescriptor(id) : null;
+            return (d != null) ? d.getDisplayName() : id;
+        }
+        
+        @Exported
+        public int getSamples() {
+            return sortedNanos.length;
+        }
+        
+        /**
+         * @param percentile 0 to 100.
+         * @return the duration in milliseconds at the percentile (nearest rank).
+         */
+        public long getPercentileMillis(int percentile) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int rank = (int)Math.ceil(percentile / 100.0 * sortedNanos.length);
+            return TimeUnit.NANOSECONDS.toMillis(sortedNanos[Math.max(rank, 1) - 1]);
+        }
+        
+        @Exported
+        public long getP50Millis() {
+            return getPercentileMillis(50);
+        }
+        
+        @Exported
+        public long getP95Millis() {
+            return getPercentileMillis(95);
+        }
+        
+        @Exported
+        public long getMaxMillis() {
+            return getPercentileMillis(100);
+        }
+    }
+    
+    /**
+     * @return jobs to read histories of.
+     */
+    private List<Job<?, ?>> getJobs() {
+        if (project instanceof MatrixProject) {
+            return new ArrayList<Job<?, ?>>(((MatrixProject)project).getActiveConfigurations());
+        }
+        return Collections.<Job<?, ?>>singletonList(project);
+    }
+    
+    /**
+     * Histories are read again only when updated,
+     * as a page and an API call refer them several times.
+     * 
+     * @return durations in recent builds.
+     */
+    private synchronized List<PublisherDurationHistory.BuildDurations> loadBuilds() {
+        List<Job<?, ?>> jobs = getJobs();
+        long currentStamp = jobs.size();
+        for (Job<?, ?> job: jobs) {
+            currentStamp = currentStamp * 31 + PublisherDurationHistory.getStamp(job);
+        }
+        if (builds == null || stamp != currentStamp) {
+            List<PublisherDurationHistory.BuildDurations> loaded = new ArrayList<PublisherDurationHistory.BuildDurations>();
+            for (Job<?, ?> job: jobs) {
+                loaded.addAll(PublisherDurationHistory.load(job));
+            }
+            builds = Collections.unmodifiableList(loaded);
+            stamp = currentStamp;
+        }
+        return builds;
+    }
+    
+    /**
+     * @return statistics for each publisher.
+     */
+    @Exported(inline = true)
+    public List<PublisherDurations> getPublishers() {
+        Map<String, List<Long>> all = new LinkedHashMap<String, List<Long>>();
+        for (PublisherDurationHistory.BuildDurations build: loadBuilds()) {
+            for (Map.Entry<String, List<Long>> entry: build.getDurations().entrySet()) {
+                List<Long> values = all.get(entry.getKey());
+                if (values == null) {
+                    values = new ArrayList<Long>();
+                    all.put(entry.getKey(), values);
+                }
+                values.addAll(entry.getValue());
+            }
+        }
+        List<PublisherDurations> publishers = new ArrayList<PublisherDurations>(all.size());
+        for (Map.Entry<String, List<Long>> entry: all.entrySet()) {
+            publishers.add(new PublisherDurations(entry.getKey(), entry.getValue()));
+        }
+        return Collections.unmodifiableList(publishers);
+    }
+    
+    /**
+     * @return the number of builds in the history.
+     *      Runs of configurations of a matrix build are counted as one build.
+     */
+    @Exported
+    public int getBuilds() {
+        Set<Integer> numbers = new HashSet<Integer>();
+        for (PublisherDurationHistory.BuildDurations build: loadBuilds()) {
+            numbers.add(build.getNumber());
+        }
+        return numbers.size();
+    }
+    
+    @Override
+    public String getIconFileName() {
+        return "graph.png";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return Messages.publisherDurationAction_displayName();
+    }
+    
+    @Override
+    public String getUrlName() {
+        return "flexible-publish-durations";
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.util.AtomicFileWriter;
+
+/**
+ * Durations of publishers in recent builds of a job.
+ * 
+ * Stored in {@value #FILENAME} in the directory of the job, one line for each build:
+ * <pre>
+ * build number TAB descriptor id TAB nanoseconds TAB descriptor id TAB nanoseconds ...
+ * </pre>
+ * A line is appended for each build, and the file is compacted to the last {@link #MAX_BUILDS} builds
+ * when it grows to twice as many.
+ * The number of builds can be changed with the system property
+ * {@code org.jenkins_ci.plugins.flexible_publish.PublisherDurationHistory.maxBuilds}.
+ */
+public final class PublisherDurationHistory {
+    private static final Logger LOGGER = Logger.getLogger(PublisherDurationHistory.class.getName());
+    public static final String FILENAME = "flexible-publish-durations.txt";
+    public static final int MAX_BUILDS = Integer.getInteger(PublisherDurationHistory.class.getName() + ".maxBuilds", 50);
+    
+    /**
+     * Locks for each job, holding the number of lines in the file.
+     */
+    private static final Map<Job<?, ?>, FileState> STATES = new WeakHashMap<Job<?, ?>, FileState>();
+    
+    private static final class FileState {
+        /**
+         * -1 if not counted yet.
+         */
+        private int lines = -1;
+    }
+    
+    private PublisherDurationHistory() {
+    }
+    
+    private static FileState getState(Job<?, ?> job) {
+        synchronized (STATES) {
+            FileState state = STATES.get(job);
+            if (state == null) {
+                state = new FileState();
+                STATES.put(job, state);
+            }
+            return state;
+        }
+    }
+    
+    /**
+     * Durations of publishers in a build.
+     */
+    public static class BuildDurations {
+        private final int number;
+        private final Map<String, List<Long>> durations;
+        
+        public BuildDurations(int number, Map<String, List<Long>> durations) {
+            this.number = number;
+            this.durations = durations;
+        }
+        
+        public int getNumber() {
+            return number;
+        }
+        
+        /**
+         * @return nanoseconds for each descriptor id. a publisher used more than once has multiple values.
+         */
+        public Map<String, List<Long>> getDurations() {
+            return durations;
+        }
+    }
+    
+    private static File getFile(Job<?, ?> job) {
+        return new File(job.getRootDir(), FILENAME);
+    }
+    
+    /**
+     * @param job
+     * @return a value changing when the history of the job is updated.
+     */
+    public static long getStamp(Job<?, ?> job) {
+        File file = getFile(job);
+        return file.lastModified() * 31 + file.length();
+    }
+    
+    /**
+     * @param job
+     * @return durations in recent builds, older first.
+     */
+    public static List<BuildDurations> load(Job<?, ?> job) {
+        List<BuildDurations> builds;
+        synchronized (getState(job)) {
+            builds = read(getFile(job));
+        }
+        if (builds.size() > MAX_BUILDS) {
+            builds = new ArrayList<BuildDurations>(builds.subList(builds.size() - MAX_BUILDS, builds.size()));
+        }
+        return builds;
+    }
+    
+    /**
+     * Appends durations of publishers run in the build.
+     * 
+     * @param run
+     * @param action
+     */
+    public static void record(Run<?, ?> run, FlexiblePublishTimingAction action) {
+        StringBuilder line = new StringBuilder();
+        line.append(run.getNumber());
+        for (FlexiblePublishTimingAction.GroupTiming group: action.getGroups()) {
+            for (FlexiblePublishTimingAction.StepTiming step: group.getSteps()) {
+                if (step.isSkipped()) {
+                    continue;
+                }
+                line.append('\t').append(sanitize(step.getDescriptorId()))
+                    .append('\t').append(step.getDurationNanos());
+            }
+        }
+        Job<?, ?> job = run.getParent();
+        FileState state = getState(job);
+        synchronized (state) {
+            File file = getFile(job);
+            try {
+                if (state.lines < 0) {
+                    state.lines = file.exists() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size() : 0;
+                }
+                Writer w = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8);
+                try {
+                    w.write(line.toString());
+                    w.write('\n');
+                } finally {
+                    w.close();
+                }
+                ++state.lines;
+                if (state.lines >= MAX_BUILDS * 2) {
+                    state.lines = compact(file);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Failed to write %s", file), e);
+                // count again next time.
+                state.lines = -1;
+            }
+        }
+    }
+    
+    /**
+     * Rewrites the file with the last {@link #MAX_BUILDS} lines.
+     * 
+     * @return the number of lines left.
+     */
+    private static int compact(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.size() > MAX_BUILDS) {
+            lines = lines.subList(lines.size() - MAX_BUILDS, lines.size());
+        }
+        AtomicFileWriter w = new AtomicFileWriter(file.toPath(), StandardCharsets.UTF_8);
+        try {
+            for (String l: lines) {
+                w.write(l);
+                w.write('\n');
+            }
+            w.commit();
+        } finally {
+            w.abort();
+        }
+        return lines.size();
+    }
+    
+    private static String sanitize(String name) {
+        return (name != null) ? name.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ') : "";
+    }
+    
+    private static List<BuildDurations> read(File file) {
+        List<BuildDurations> builds = new ArrayList<BuildDurations>();
+        if (!file.exists()) {
+            return builds;
+        }
+        try {
+            BufferedReader r = new BufferedReader(new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8));
+            try {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    BuildDurations build = parse(line);
+                    if (build != null) {
+                        builds.add(build);
+                    }
+                }
+            } finally {
+                r.close();
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Failed to read %s", file), e);
+        }
+        return builds;
+    }
+    
+    private static BuildDurations parse(String line) {
+        String[] fields = line.split("\t");
+        try {
+            int number = Integer.parseInt(fields[0]);
+            Map<String, List<Long>> durations = new LinkedHashMap<String, List<Long>>();
+            for (int i = 1; i + 1 < fields.length; i += 2) {
+                List<Long> values = durations.get(fields[i]);
+                if (values == null) {
+                    values = new ArrayList<Long>();
+                    durations.put(fields[i], values);
+                }
+                values.add(Long.parseLong(fields[i + 1]));
+            }
+            return new BuildDurations(number, durations);
+        } catch (NumberFormatException e) {
+            LOGGER.log(Level.FINE, String.format("Ignored a broken line: %s", line), e);
+            return null;
+        }
+    }
+    
+    /**
+     * Records durations when a build completes.
+     */
+    @Extension
+    public static class RecordOnCompleted extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> r, TaskListener listener) {
+            FlexiblePublishTimingAction action = r.getAction(FlexiblePublishTimingAction.class);
+            if (action != null) {
+                record(r, action);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import hudson.model.BuildBadgeAction;
+import hudson.model.Run;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Marks a build where publishers ran over their thresholds.
+ * 
+ * @see SlowPublisherDetector
+ */
+@ExportedBean
+public class SlowPublisherBadgeAction implements BuildBadgeAction {
+    private final List<SlowPublisher> publishers = new ArrayList<SlowPublisher>();
+    
+    /**
+     * A publisher ran over its threshold.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class SlowPublisher {
+        private final String name;
+        private final long durationNanos;
+        private final long thresholdNanos;
+        
+        public SlowPublisher(String name, long durationNanos, long thresholdNanos) {
+            this.name = name;
+            this.durationNanos = durationNanos;
+            this.thresholdNanos = thresholdNanos;
+        }
+        
+        @Exported
+        public String getName() {
+            return name;
+        }
+        
+        @Exported
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+        
+        @Exported
+        public long getThresholdMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+        }
+    }
+    
+    /**
+     * @param run
+     * @return the action attached to the run. created if not exists.
+     */
+    public static SlowPublisherBadgeAction getOrCreate(Run<?, ?> run) {
+        synchronized (run) {
+            SlowPublisherBadgeAction action = run.getAction(SlowPublisherBadgeAction.class);
+            if (action == null) {
+                action = new SlowPublisherBadgeAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+    
+    public synchronized void add(SlowPublisher publisher) {
+        publishers.add(publisher);
+    }
+    
+    @Exported
+    public synchronized List<SlowPublisher> getPublishers() {
+        return Collections.unmodifiableList(new ArrayList<SlowPublisher>(publishers));
+    }
+    
+    /**
+     * @return text shown when hovering over the badge.
+     */
+    public String getTooltip() {
+        StringBuilder sb = new StringBuilder();
+        for (SlowPublisher p: getPublishers()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(Messages.slowPublisherBadgeAction_tooltip(p.getName(), p.getDurationMillis() / 1000, p.getThresholdMillis() / 1000));
+        }
+        return sb.toString();
+    }
+    
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+    
+    @Override
+    public String getUrlName() {
+        return null;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.tasks.BuildStep;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.model.Jenkins;
+
+/**
+ * Reports publishers running over thresholds configured in the global configuration.
+ * 
+ * A slow publisher is reported with a warning in the console,
+ * a badge on the build ({@link SlowPublisherBadgeAction}) and a log record.
+ */
+public class SlowPublisherDetector {
+    private static final Logger LOGGER = Logger.getLogger(SlowPublisherDetector.class.getName());
+    
+    private SlowPublisherDetector() {
+    }
+    
+    /**
+     * @param build
+     * @param buildStep
+     * @param nanos time the build step took.
+     * @param listener
+     * @return whether the build step is reported as slow.
+     */
+    public static boolean check(AbstractBuild<?, ?> build, BuildStep buildStep, long nanos, BuildListener listener) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return false;
+        }
+        FlexiblePublisher.FlexiblePublisherDescriptor d = jenkins.getDescriptorByType(FlexiblePublisher.FlexiblePublisherDescriptor.class);
+        long thresholdNanos = (d != null) ? d.getSlowPublisherThresholdNanos(buildStep) : 0;
+        if (thresholdNanos <= 0 || nanos <= thresholdNanos) {
+            return false;
+        }
+        String name = FlexiblePublisher.getBuildStepShortName(buildStep);
+        listener.getLogger().println(String.format(
+                "[flexible-publish] WARNING: %s took %d seconds, over the threshold of %d seconds",
+                name,
+                TimeUnit.NANOSECONDS.toSeconds(nanos),
+                TimeUnit.NANOSECONDS.toSeconds(thresholdNanos)
+        ));
+        SlowPublisherBadgeAction.getOrCreate(build).add(new SlowPublisherBadgeAction.SlowPublisher(name, nanos, thresholdNanos));
+        LOGGER.log(Level.WARNING, "{0} in {1} took {2} ms, over the threshold of {3} ms", new Object[] {
+                name,
+                build.getFullDisplayName(),
+                TimeUnit.NANOSECONDS.toMillis(nanos),
+                TimeUnit.NANOSECONDS.toMillis(thresholdNanos),
+        });
+        return true;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import hudson.Extension;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Describable;
+import hudson.model.Descriptor;
+import hudson.tasks.BuildStep;
+import hudson.tasks.Builder;
+import hudson.tasks.Publisher;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * How long a publisher can take in flexible publish before it is reported as slow.
+ * 
+ * @see SlowPublisherDetector
+ */
+public class SlowPublisherThreshold extends AbstractDescribableImpl<SlowPublisherThreshold> {
+    private final String publisher;
+    private final long thresholdSeconds;
+    
+    /**
+     * @param publisher the id of the descriptor of the publisher.
+     * @param thresholdSeconds
+     */
+    @DataBoundConstructor
+    public SlowPublisherThreshold(String publisher, long thresholdSeconds) {
+        this.publisher = publisher;
+        this.thresholdSeconds = thresholdSeconds;
+    }
+    
+    /**
+     * @return the id of the descriptor of the publisher.
+     */
+    public String getPublisher() {
+        return publisher;
+    }
+    
+    public long getThresholdSeconds() {
+        return thresholdSeconds;
+    }
+    
+    public long getThresholdNanos() {
+        return TimeUnit.SECONDS.toNanos(thresholdSeconds);
+    }
+    
+    /**
+     * @param buildStep
+     * @return the key to look up thresholds for the build step. {@code null} if not applicable.
+     */
+    public static String keyOf(BuildStep buildStep) {
+        if (buildStep instanceof Describable) {
+            return ((Describable<?>)buildStep).getDescriptor().getId();
+        }
+        return null;
+    }
+    
+    @Extension
+    public static class DescriptorImpl extends Descriptor<SlowPublisherThreshold> {
+        /**
+         * Builders not listed, as the builder lister of conditional-buildstep
+         * used with Any Build Step plugin excludes.
+         */
+        private static final Set<String> BUILDER_EXCLUSIONS = new HashSet<String>(Arrays.asList(
+                "org.jenkinsci.plugins.conditionalbuildstep.ConditionalBuilder.DescriptorImpl",
+                "org.jenkinsci.plugins.conditionalbuildstep.singlestep.SingleConditionalBuilder.SingleConditionalBuilderDescriptor"
+        ));
+        
+        @Override
+        public String getDisplayName() {
+            return Messages.slowPublisherThreshold_displayName();
+        }
+        
+        public ListBoxModel doFillPublisherItems() {
+            ListBoxModel items = new ListBoxModel();
+            for (Descriptor<Publisher> d: Publisher.all()) {
+                if (d instanceof FlexiblePublisher.FlexiblePublisherDescriptor) {
+                    continue;
+                }
+                items.add(d.getDisplayName(), d.getId());
+            }
+            // builders can be used as publishers with Any Build Step plugin.
+            for (Descriptor<Builder> d: Builder.all()) {
+                if (BUILDER_EXCLUSIONS.contains(d.getClass().getCanonicalName())) {
+                    continue;
+                }
+                items.add(d.getDisplayName(), d.getId());
+            }
+            return items;
+        }
+        
+        public FormValidation doCheckThresholdSeconds(@QueryParameter long value) {
+            if (value <= 0) {
+                return FormValidation.error(Messages.slowPublisherThreshold_notPositive());
+            }
+            return FormValidation.ok();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.IOUtils;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction.StepResult;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.console.AnnotatedLargeText;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Run;
+import hudson.model.StreamBuildListener;
+import hudson.tasks.BuildStep;
+import jenkins.model.RunAction2;
+
+/**
+ * Index of console outputs of publishers written to separate files
+ * in {@value #DIRNAME} in the build directory.
+ * 
+ * Only a pointer to the file is written to the console of the build,
+ * and each output is loaded only when requested.
+ * 
+ * @see FlexiblePublisher#isSeparateStepLogs()
+ */
+@ExportedBean
+public class StepLogAction implements RunAction2 {
+    private static final Logger LOGGER = Logger.getLogger(StepLogAction.class.getName());
+    
+    public static final String DIRNAME = "flexible-publish-logs";
+    
+    /**
+     * Kilobytes of the tail of an output shown in the page of the output.
+     * The whole output is shown via the "full" link, as the console page of builds does.
+     * Can be changed with the system property
+     * {@code org.jenkins_ci.plugins.flexible_publish.StepLogAction.tailKB}.
+     */
+    public static final int TAIL_KB = Integer.getInteger(StepLogAction.class.getName() + ".tailKB", 150);
+    
+    private final List<StepLog> logs = new ArrayList<StepLog>();
+    private transient Run<?, ?> run;
+    private transient volatile boolean active;
+    
+    /**
+     * Console output of a publisher.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class StepLog {
+        private final int index;
+        private final String name;
+        private final String className;
+        private StepResult result;
+        private long durationNanos;
+        private transient StepLogAction parent;
+        private transient OutputStream out;
+        private transient BuildListener listener;
+        
+        private StepLog(StepLogAction parent, int index, String name, String className) {
+            this.parent = parent;
+            this.index = index;
+            this.name = name;
+            this.className = className;
+        }
+        
+        @Exported
+        public int getIndex() {
+            return index;
+        }
+        
+        @Exported
+        public String getName() {
+            return name;
+        }
+        
+        @Exported
+        public String getClassName() {
+            return className;
+        }
+        
+        /**
+         * @return the result of the publisher. {@code null} while running.
+         */
+        @Exported
+        public StepResult getResult() {
+            return result;
+        }
+        
+        @Exported
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+        
+        public File getFile() {
+            return new File(new File(parent.run.getRootDir(), DIRNAME), String.format("%d.log", index));
+        }
+        
+        @Exported
+        public long getSize() {
+            return getFile().length();
+        }
+        
+        public boolean isRunning() {
+            return listener != null;
+        }
+        
+        /**
+         * @return the listener the publisher writes to.
+         */
+        public BuildListener getListener() {
+            return listener;
+        }
+        
+        /**
+         * @param full whether to show the whole output.
+         * @return the offset to show the output from. 0 to show the whole output.
+         */
+        public long getOffset(boolean full) {
+            if (full) {
+                return 0;
+            }
+            return Math.max(0, getFile().length() - TAIL_KB * 1024L);
+        }
+        
+        public AnnotatedLargeText<StepLog> getLogText() {
+            return new AnnotatedLargeText<StepLog>(getFile(), parent.run.getCharset(), !isRunning(), this);
+        }
+        
+        public Run<?, ?> getRun() {
+            return parent.run;
+        }
+        
+        /**
+         * Serves the output as a plain text.
+         * 
+         * @param req
+         * @param rsp
+         * @throws IOException
+         */
+        public void doConsoleText(StaplerRequest req, StaplerResponse rsp) throws IOException {
+            rsp.setContentType("text/plain;charset=UTF-8");
+            OutputStream os = rsp.getCompressedOutputStream(req);
+            try {
+                getLogText().writeLogTo(0, os);
+            } finally {
+                os.close();
+            }
+        }
+        
+        /**
+         * Finishes writing the output.
+         * 
+         * @param result
+         * @param nanos
+         */
+        public void close(StepResult result, long nanos) {
+            this.result = result;
+            this.durationNanos = nanos;
+            listener = null;
+            IOUtils.closeQuietly(out);
+        }
+    }
+    
+    /**
+     * @param run
+     * @return the action attached to the run. created if not exists.
+     */
+    public static StepLogAction getOrCreate(Run<?, ?> run) {
+        synchronized (run) {
+            StepLogAction action = run.getAction(StepLogAction.class);
+            if (action == null) {
+                action = new StepLogAction();
+                run.addAction(action);
+            }
+            return action;
+        }
+    }
+    
+    /**
+     * Starts writing the output of a build step into a separate file,
+     * and writes the pointer to the file to the listener.
+     * 
+     * @param build
+     * @param buildStep
+     * @param listener
+     * @return the log. {@code null} if outputs are not separated in the build.
+     */
+    public static StepLog open(AbstractBuild<?, ?> build, BuildStep buildStep, BuildListener listener) {
+        StepLogAction action = build.getAction(StepLogAction.class);
+        if (action == null || !action.active) {
+            return null;
+        }
+        StepLog log = action.add(FlexiblePublisher.getBuildStepShortName(buildStep), buildStep.getClass().getName());
+        File file = log.getFile();
+        try {
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+                throw new IOException("Failed to create " + file.getParentFile());
+            }
+            log.out = new FileOutputStream(file);
+            log.listener = new StreamBuildListener(log.out, build.getCharset());
+            listener.getLogger().print(String.format("[flexible-publish] Output of %s: ", log.getName()));
+            listener.hyperlink(String.format("/%s%s/%d/", build.getUrl(), action.getUrlName(), log.getIndex()), file.getName());
+            listener.getLogger().println();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write the output to " + file + ". Written to the console instead.", e);
+            log.close(null, 0);
+            return null;
+        }
+        return log;
+    }
+    
+    private synchronized StepLog add(String name, String className) {
+        StepLog log = new StepLog(this, logs.size(), name, className);
+        logs.add(log);
+        return log;
+    }
+    
+    /**
+     * @param active whether to separate outputs of publishers run from now.
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    @Exported
+    public synchronized List<StepLog> getLogs() {
+        return Collections.unmodifiableList(new ArrayList<StepLog>(logs));
+    }
+    
+    /**
+     * Binds {@code /flexible-publish-logs/N/} to the N-th log.
+     * 
+     * @param token
+     * @return the log. {@code null} if not found.
+     */
+    public synchronized StepLog getDynamic(String token) {
+        try {
+            int index = Integer.parseInt(token);
+            return (index >= 0 && index < logs.size()) ? logs.get(index) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    public Run<?, ?> getRun() {
+        return run;
+    }
+    
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+    
+    @Override
+    public synchronized void onLoad(Run<?, ?> r) {
+        this.run = r;
+        for (StepLog log: logs) {
+            log.parent = this;
+        }
+    }
+    
+    @Override
+    public String getIconFileName() {
+        return "clipboard.png";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return Messages.stepLogAction_displayName();
+    }
+    
+    @Override
+    public String getUrlName() {
+        return DIRNAME;
+    }
+}
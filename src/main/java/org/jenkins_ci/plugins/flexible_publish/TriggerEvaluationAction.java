@@ -0,0 +1,194 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import hudson.model.AbstractBuild;
+import hudson.model.Run;
+import jenkins.model.RunAction2;
+
+/**
+ * Records decisions of {@link ConditionalDependencyWrapper} on the upstream build.
+ * 
+ * Not displayed in the side panel, but available via the URL and the remote API.
+ */
+@ExportedBean
+public class TriggerEvaluationAction implements RunAction2 {
+    private final List<TriggerEvaluation> evaluations = new ArrayList<TriggerEvaluation>();
+    private transient Run<?, ?> run;
+    
+    /**
+     * A decision whether to trigger a downstream project.
+     */
+    @ExportedBean(defaultVisibility = 2)
+    public static class TriggerEvaluation {
+        private final String upstreamProject;
+        private final int upstreamBuildNumber;
+        private final String downstreamProject;
+        private final String condition;
+        private final boolean conditionMet;
+        private final boolean triggered;
+        private final long durationNanos;
+        private final String exception;
+        
+        public TriggerEvaluation(String upstreamProject, int upstreamBuildNumber, String downstreamProject, String condition,
+                boolean conditionMet, boolean triggered, long durationNanos, String exception) {
+            this.upstreamProject = upstreamProject;
+            this.upstreamBuildNumber = upstreamBuildNumber;
+            this.downstreamProject = downstreamProject;
+            this.condition = condition;
+            this.conditionMet = conditionMet;
+            this.triggered = triggered;
+            this.durationNanos = durationNanos;
+            this.exception = exception;
+        }
+        
+        /**
+         * @return the full name of the upstream project.
+         */
+        @Exported
+        public String getUpstreamProject() {
+            return upstreamProject;
+        }
+        
+        @Exported
+        public int getUpstreamBuildNumber() {
+            return upstreamBuildNumber;
+        }
+        
+        /**
+         * @return the full name of the downstream project.
+         */
+        @Exported
+        public String getDownstreamProject() {
+            return downstreamProject;
+        }
+        
+        /**
+         * @return the display name of the condition.
+         */
+        @Exported
+        public String getCondition() {
+            return condition;
+        }
+        
+        @Exported
+        public boolean isConditionMet() {
+            return conditionMet;
+        }
+        
+        @Exported
+        public boolean isTriggered() {
+            return triggered;
+        }
+        
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+        
+        @Exported
+        public long getDurationMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+        
+        /**
+         * @return the exception thrown in the evaluation. null if not thrown.
+         */
+        @Exported
+        public String getException() {
+            return exception;
+        }
+        
+        public boolean isFailed() {
+            return exception != null;
+        }
+    }
+    
+    /**
+     * Records a decision to the upstream build, and to {@link TriggerEvaluationStatistics}.
+     * 
+     * The record is saved with the upstream build,
+     * as triggers are evaluated before the upstream build is saved at the end.
+     * 
+     * @param build the upstream build
+     * @param evaluation the decision
+     */
+    public static void record(AbstractBuild<?, ?> build, TriggerEvaluation evaluation) {
+        TriggerEvaluationAction action;
+        synchronized (build) {
+            action = build.getAction(TriggerEvaluationAction.class);
+            if (action == null) {
+                action = new TriggerEvaluationAction();
+                build.addAction(action);
+            }
+        }
+        action.add(evaluation);
+        TriggerEvaluationStatistics.get().record(evaluation);
+    }
+    
+    private synchronized void add(TriggerEvaluation evaluation) {
+        evaluations.add(evaluation);
+    }
+    
+    @Exported
+    public synchronized List<TriggerEvaluation> getEvaluations() {
+        return Collections.unmodifiableList(new ArrayList<TriggerEvaluation>(evaluations));
+    }
+    
+    public Run<?, ?> getRun() {
+        return run;
+    }
+    
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        this.run = r;
+    }
+    
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        this.run = r;
+    }
+    
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return Messages.triggerEvaluationAction_displayName();
+    }
+    
+    @Override
+    public String getUrlName() {
+        return "flexible-publish-triggers";
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jenkins_ci.plugins.flexible_publish.TriggerEvaluationAction.TriggerEvaluation;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+
+/**
+ * Controller-wide counters of decisions of {@link ConditionalDependencyWrapper}.
+ * 
+ * Counted for the whole controller and for each dependency (upstream and downstream projects),
+ * to find conditional triggers slow or failing to evaluate.
+ * Counters are reset when Jenkins restarts.
+ */
+@Extension
+public class TriggerEvaluationStatistics {
+    private final Counters total = new Counters();
+    private final ConcurrentMap<String, Counters> dependencies = new ConcurrentHashMap<String, Counters>();
+    
+    /**
+     * Counters for evaluations.
+     */
+    public static class Counters {
+        private final AtomicLong evaluations = new AtomicLong();
+        private final AtomicLong triggered = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        
+        private void record(TriggerEvaluation evaluation) {
+            evaluations.incrementAndGet();
+            if (evaluation.isTriggered()) {
+                triggered.incrementAndGet();
+            }
+            if (evaluation.isFailed()) {
+                failures.incrementAndGet();
+            }
+            long nanos = evaluation.getDurationNanos();
+            totalNanos.addAndGet(nanos);
+            long max;
+            while ((max = maxNanos.get()) < nanos && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+        
+        public long getEvaluations() {
+            return evaluations.get();
+        }
+        
+        public long getTriggered() {
+            return triggered.get();
+        }
+        
+        public long getFailures() {
+            return failures.get();
+        }
+        
+        public long getTotalNanos() {
+            return totalNanos.get();
+        }
+        
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+    }
+    
+    /**
+     * @return the instance
+     */
+    public static TriggerEvaluationStatistics get() {
+        return ExtensionList.lookupSingleton(TriggerEvaluationStatistics.class);
+    }
+    
+    /**
+     * @param evaluation a decision to count.
+     */
+    public void record(TriggerEvaluation evaluation) {
+        total.record(evaluation);
+        String key = String.format("%s -> %s", evaluation.getUpstreamProject(), evaluation.getDownstreamProject());
+        Counters counters = dependencies.get(key);
+        if (counters == null) {
+            Counters newCounters = new Counters();
+            counters = dependencies.putIfAbsent(key, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        counters.record(evaluation);
+    }
+    
+    /**
+     * @return counters for all dependencies.
+     */
+    public Counters getTotal() {
+        return total;
+    }
+    
+    /**
+     * @return counters for each dependency. Keys are {@code upstream -> downstream}.
+     */
+    public Map<String, Counters> getDependencies() {
+        return Collections.unmodifiableMap(new HashMap<String, Counters>(dependencies));
+    }
+}
@@ -31,6 +31,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang.StringUtils;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction.StepResult;
 import org.jenkins_ci.plugins.flexible_publish.FlexiblePublisher;
 
 import com.google.common.base.Function;
@@ -102,8 +103,12 @@ public class FailAtEndBuilder extends Builder {
         // do as AbstractBuild.AbstractRunner#performAllBuildSteps
         boolean wholeResult = true;
         for (BuildStep buildstep: buildsteps) {
+            StepResult stepResult = StepResult.SUCCESS;
+            Exception exception = null;
+            StepInstrumentation instrumentation = StepInstrumentation.stepStarted(build, buildstep, listener);
             try {
-                if (!buildstep.perform(build, launcher, listener)) {
+                if (!buildstep.perform(build, launcher, instrumentation.getListener())) {
+                    stepResult = StepResult.FAILURE;
                     listener.error(String.format(
                             "[flexible-publish] %s failed",
                             FlexiblePublisher.getBuildStepDetailedName(buildstep)
@@ -112,6 +117,8 @@ public class FailAtEndBuilder extends Builder {
                     wholeResult = false;
                 }
             } catch(AbortException e) {
+                stepResult = StepResult.ABORTED;
+                exception = e;
                 listener.error(String.format(
                         "[flexible-publish] %s aborted: %s",
                         FlexiblePublisher.getBuildStepDetailedName(buildstep),
@@ -121,12 +128,16 @@ public class FailAtEndBuilder extends Builder {
                 build.setResult(Result.FAILURE);
                 wholeResult = false;
             } catch (Exception e) {
+                stepResult = StepResult.EXCEPTION;
+                exception = e;
                 e.printStackTrace(listener.error(String.format(
                         "[flexible-publish] %s aborted due to exception",
                         FlexiblePublisher.getBuildStepDetailedName(buildstep)
                 )));
                 build.setResult(Result.FAILURE);
                 wholeResult = false;
+            } finally {
+                instrumentation.stepEnded(stepResult, exception);
             }
         }
         return wholeResult;
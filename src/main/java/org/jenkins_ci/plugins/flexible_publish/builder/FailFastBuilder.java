@@ -31,6 +31,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang.StringUtils;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction.StepResult;
 import org.jenkins_ci.plugins.flexible_publish.FlexiblePublisher;
 
 import com.google.common.base.Function;
@@ -100,8 +101,12 @@ public class FailFastBuilder extends Builder {
     public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
             throws InterruptedException, IOException {
         for (BuildStep buildstep: buildsteps) {
+            StepResult stepResult = StepResult.SUCCESS;
+            Exception exception = null;
+            StepInstrumentation instrumentation = StepInstrumentation.stepStarted(build, buildstep, listener);
             try {
-                if (!buildstep.perform(build, launcher, listener)) {
+                if (!buildstep.perform(build, launcher, instrumentation.getListener())) {
+                    stepResult = StepResult.FAILURE;
                     listener.error(String.format(
                             "[flexible-publish] %s failed",
                             FlexiblePublisher.getBuildStepDetailedName(buildstep)
@@ -110,6 +115,8 @@ public class FailFastBuilder extends Builder {
                     return false;
                 }
             } catch(AbortException e) {
+                stepResult = StepResult.ABORTED;
+                exception = e;
                 listener.error(String.format(
                         "[flexible-publish] %s aborted: %s",
                         FlexiblePublisher.getBuildStepDetailedName(buildstep),
@@ -119,6 +126,8 @@ public class FailFastBuilder extends Builder {
                 build.setResult(Result.FAILURE);
                 return false;
             } catch (Exception e) {
+                stepResult = StepResult.EXCEPTION;
+                exception = e;
                 listener.error(String.format(
                         "[flexible-publish] %s failed due to exception",
                         FlexiblePublisher.getBuildStepDetailedName(buildstep)
@@ -129,6 +138,8 @@ public class FailFastBuilder extends Builder {
                 )));
                 build.setResult(Result.FAILURE);
                 return false;
+            } finally {
+                instrumentation.stepEnded(stepResult, exception);
             }
         }
         return true;
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.builder;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishEventLog;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishTimingAction.StepResult;
+import org.jenkins_ci.plugins.flexible_publish.SlowPublisherDetector;
+import org.jenkins_ci.plugins.flexible_publish.StepLogAction;
+import org.jenkins_ci.plugins.flexible_publish.condition.EvaluationScope;
+import org.jenkins_ci.plugins.flexible_publish.jfr.JfrEvents;
+import org.jenkins_ci.plugins.flexible_publish.metrics.FlexiblePublishMetrics;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.tasks.BuildStep;
+
+/**
+ * Records a build step performed by {@link FailAtEndBuilder} or {@link FailFastBuilder}
+ * to logs, timings, events and metrics.
+ * 
+ * Failures in recording are logged and never fail the build step.
+ */
+final class StepInstrumentation {
+    private static final Logger LOGGER = Logger.getLogger(StepInstrumentation.class.getName());
+    
+    private final AbstractBuild<?, ?> build;
+    private final BuildStep buildstep;
+    private final BuildListener listener;
+    private final long start;
+    private final JfrEvents.Span span;
+    private final StepLogAction.StepLog stepLog;
+    
+    private StepInstrumentation(AbstractBuild<?, ?> build, BuildStep buildstep, BuildListener listener,
+            long start, JfrEvents.Span span, StepLogAction.StepLog stepLog) {
+        this.build = build;
+        this.buildstep = buildstep;
+        this.listener = listener;
+        this.start = start;
+        this.span = span;
+        this.stepLog = stepLog;
+    }
+    
+    /**
+     * Call before performing the build step, and call {@link #stepEnded(StepResult, Exception)} in {@code finally}.
+     * 
+     * @param build
+     * @param buildstep
+     * @param listener
+     * @return the instrumentation for the build step.
+     */
+    static StepInstrumentation stepStarted(AbstractBuild<?, ?> build, BuildStep buildstep, BuildListener listener) {
+        long start = System.nanoTime();
+        JfrEvents.Span span = JfrEvents.begin(JfrEvents.Kind.STEP, build, buildstep.getClass().getName(), null);
+        try {
+            FlexiblePublishEventLog.stepStarted(build, buildstep);
+        } catch (RuntimeException e) {
+            failed("log the start of", buildstep, e);
+        }
+        StepLogAction.StepLog stepLog = null;
+        try {
+            stepLog = StepLogAction.open(build, buildstep, listener);
+        } catch (RuntimeException e) {
+            failed("open the separate log of", buildstep, e);
+        }
+        return new StepInstrumentation(build, buildstep, listener, start, span, stepLog);
+    }
+    
+    /**
+     * @return the listener to pass to the build step.
+     */
+    BuildListener getListener() {
+        return (stepLog != null) ? stepLog.getListener() : listener;
+    }
+    
+    /**
+     * @param result
+     * @param exception the exception thrown from the build step. may be {@code null}.
+     */
+    void stepEnded(StepResult result, Exception exception) {
+        long nanos = System.nanoTime() - start;
+        if (stepLog != null) {
+            try {
+                stepLog.close(result, nanos);
+            } catch (RuntimeException e) {
+                failed("close the separate log of", buildstep, e);
+            }
+        }
+        span.end(result.name());
+        try {
+            FlexiblePublishTimingAction.recordStep(build, buildstep, nanos, result);
+        } catch (RuntimeException e) {
+            failed("record the timing of", buildstep, e);
+        }
+        try {
+            FlexiblePublishEventLog.stepEnded(build, buildstep, nanos, result, exception);
+        } catch (RuntimeException e) {
+            failed("log the end of", buildstep, e);
+        }
+        try {
+            FlexiblePublishMetrics.get().stepPerformed(buildstep.getClass().getName(), nanos, result != StepResult.SUCCESS);
+        } catch (RuntimeException e) {
+            failed("update metrics for", buildstep, e);
+        }
+        try {
+            SlowPublisherDetector.check(build, buildstep, nanos, listener);
+        } catch (RuntimeException e) {
+            failed("check the duration of", buildstep, e);
+        }
+        // the publisher may have changed the environment and files.
+        EvaluationScope.invalidate(build);
+    }
+    
+    private static void failed(String what, BuildStep buildstep, RuntimeException e) {
+        LOGGER.log(Level.WARNING, String.format("Failed to %s %s", what, buildstep.getClass().getName()), e);
+    }
+}
@@ -0,0 +1,448 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+import org.jenkins_ci.plugins.run_condition.core.BooleanCondition;
+import org.jenkins_ci.plugins.run_condition.core.ExpressionCondition;
+import org.jenkins_ci.plugins.run_condition.core.FileExistsCondition;
+import org.jenkins_ci.plugins.run_condition.core.FilesMatchCondition;
+import org.jenkins_ci.plugins.run_condition.core.NumericalComparisonCondition;
+import org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition;
+import org.jenkins_ci.plugins.run_condition.logic.And;
+import org.jenkins_ci.plugins.run_condition.logic.ConditionContainer;
+import org.jenkins_ci.plugins.run_condition.logic.Not;
+import org.jenkins_ci.plugins.run_condition.logic.Or;
+
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Items;
+
+/**
+ * {@link RunCondition} compiled into a tree to evaluate efficiently.
+ * 
+ * <ul>
+ *   <li>Nested {@link And}s and {@link Or}s are flattened.</li>
+ *   <li>Double {@link Not}s are removed.</li>
+ *   <li>Operands of {@link And} and {@link Or} are evaluated in the order of
+ *      costs estimated with {@link ConditionCostEstimator},
+ *      and the evaluation stops as soon as the result is decided.</li>
+ *   <li>Once builds run, the order is adjusted with the time and the selectivity
+ *      of each operand observed in the job (see {@link ConditionStatistics}).</li>
+ * </ul>
+ * 
+ * The result is the same to the original condition
+ * unless operands throw exceptions:
+ * an operand throwing an exception may not be evaluated
+ * when a cheaper operand decides the result.
+ */
+public abstract class CompiledCondition {
+    private final RunCondition condition;
+    
+    protected CompiledCondition(RunCondition condition) {
+        this.condition = condition;
+    }
+    
+    /**
+     * @return the original condition.
+     */
+    public RunCondition getCondition() {
+        return condition;
+    }
+    
+    /**
+     * @return estimated cost to evaluate this condition.
+     */
+    public abstract int getCost();
+    
+    /**
+     * @return true if the result of this condition may change when the build result changes.
+     */
+    public abstract boolean dependsOnResult();
+    
+    /**
+     * Tells whether the result may change when publishers run, other than by changing the build result:
+     * e.g. conditions testing files in the workspace and token macros reading the console output.
+     * 
+     * @return true if the result of this condition may change while the build runs.
+     */
+    public abstract boolean dependsOnBuildState();
+    
+    /**
+     * Evaluates the condition in the perform phase.
+     * 
+     * @param build
+     * @param listener
+     * @return true if satisfied.
+     * @throws Exception
+     * @see RunCondition#runPerform(AbstractBuild, BuildListener)
+     */
+    public abstract boolean runPerform(AbstractBuild<?, ?> build, BuildListener listener) throws Exception;
+    
+    /**
+     * @param condition may be null.
+     * @return compiled condition.
+     */
+    public static CompiledCondition compile(RunCondition condition) {
+        if (condition instanceof And) {
+            List<CompiledCondition> operands = new ArrayList<CompiledCondition>();
+            for (RunCondition c: getConditions(((And)condition).getConditions())) {
+                CompiledCondition operand = compile(c);
+                if (operand instanceof AndCondition) {
+                    operands.addAll(((AndCondition)operand).getOperands());
+                } else {
+                    operands.add(operand);
+                }
+            }
+            return (operands.size() == 1) ? operands.get(0) : new AndCondition(condition, operands);
+        }
+        if (condition instanceof Or) {
+            List<CompiledCondition> operands = new ArrayList<CompiledCondition>();
+            for (RunCondition c: getConditions(((Or)condition).getConditions())) {
+                CompiledCondition operand = compile(c);
+                if (operand instanceof OrCondition) {
+                    operands.addAll(((OrCondition)operand).getOperands());
+                } else {
+                    operands.add(operand);
+                }
+            }
+            return (operands.size() == 1) ? operands.get(0) : new OrCondition(condition, operands);
+        }
+        if (condition instanceof Not) {
+            CompiledCondition operand = compile(((Not)condition).getCondition());
+            if (operand instanceof NotCondition) {
+                return ((NotCondition)operand).getOperand();
+            }
+            return new NotCondition(condition, operand);
+        }
+        return new LeafCondition(condition);
+    }
+    
+    private static List<RunCondition> getConditions(List<ConditionContainer> containers) {
+        if (containers == null) {
+            return Collections.emptyList();
+        }
+        List<RunCondition> conditions = new ArrayList<RunCondition>(containers.size());
+        for (ConditionContainer c: containers) {
+            conditions.add(c.getCondition());
+        }
+        return conditions;
+    }
+    
+    /**
+     * A condition other than logical operations.
+     */
+    public static class LeafCondition extends CompiledCondition {
+        /**
+         * Conditions known not to refer the build result
+         * unless their strings contain token macros.
+         * Other conditions are considered to depend on the result.
+         */
+        private static final Set<String> RESULT_INDEPENDENT_CONDITIONS = new HashSet<String>(Arrays.asList(
+                "org.jenkins_ci.plugins.run_condition.core.AlwaysRun",
+                "org.jenkins_ci.plugins.run_condition.core.NeverRun",
+                "org.jenkins_ci.plugins.run_condition.core.BooleanCondition",
+                "org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition",
+                "org.jenkins_ci.plugins.run_condition.core.ExpressionCondition",
+                "org.jenkins_ci.plugins.run_condition.core.NumericalComparisonCondition",
+                "org.jenkins_ci.plugins.run_condition.core.CauseCondition",
+                "org.jenkins_ci.plugins.run_condition.core.DayCondition",
+                "org.jenkins_ci.plugins.run_condition.core.TimeCondition",
+                "org.jenkins_ci.plugins.run_condition.core.FileExistsCondition",
+                "org.jenkins_ci.plugins.run_condition.core.FilesMatchCondition"
+        ));
+        
+        /**
+         * Conditions known to refer nothing changed by publishers but the build result
+         * unless their strings contain token macros.
+         * Other conditions are considered to depend on the state of the build, e.g. the workspace.
+         */
+        private static final Set<String> STATE_INDEPENDENT_CONDITIONS = new HashSet<String>(Arrays.asList(
+                "org.jenkins_ci.plugins.run_condition.core.AlwaysRun",
+                "org.jenkins_ci.plugins.run_condition.core.NeverRun",
+                "org.jenkins_ci.plugins.run_condition.core.BooleanCondition",
+                "org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition",
+                "org.jenkins_ci.plugins.run_condition.core.ExpressionCondition",
+                "org.jenkins_ci.plugins.run_condition.core.NumericalComparisonCondition",
+                "org.jenkins_ci.plugins.run_condition.core.CauseCondition",
+                "org.jenkins_ci.plugins.run_condition.core.DayCondition",
+                "org.jenkins_ci.plugins.run_condition.core.TimeCondition",
+                "org.jenkins_ci.plugins.run_condition.core.StatusCondition"
+        ));
+        
+        private final int cost;
+        private final boolean mayContainTokenMacros;
+        private final boolean dependsOnResult;
+        private final boolean dependsOnBuildState;
+        
+        public LeafCondition(RunCondition condition) {
+            super(condition);
+            this.cost = ConditionCostEstimator.estimateCost(condition);
+            this.mayContainTokenMacros = mayContainTokenMacros(condition);
+            // token macros (e.g. BUILD_LOG_REGEX) may refer the build result.
+            this.dependsOnResult = (condition != null)
+                    && (!RESULT_INDEPENDENT_CONDITIONS.contains(condition.getClass().getName()) || mayContainTokenMacros);
+            this.dependsOnBuildState = (condition != null)
+                    && (!STATE_INDEPENDENT_CONDITIONS.contains(condition.getClass().getName()) || mayContainTokenMacros);
+        }
+        
+        /**
+         * @param condition
+         * @return true if strings of the condition expanded with token-macro may contain token macros
+         *      other than environment variables.
+         * @see EnvironmentSnapshot#mayContainTokenMacros(String)
+         */
+        private static boolean mayContainTokenMacros(RunCondition condition) {
+            List<String> values;
+            if (condition instanceof StringsMatchCondition) {
+                StringsMatchCondition c = (StringsMatchCondition)condition;
+                values = Arrays.asList(c.getArg1(), c.getArg2());
+            } else if (condition instanceof ExpressionCondition) {
+                ExpressionCondition c = (ExpressionCondition)condition;
+                values = Arrays.asList(c.getExpression(), c.getLabel());
+            } else if (condition instanceof BooleanCondition) {
+                values = Arrays.asList(((BooleanCondition)condition).getToken());
+            } else if (condition instanceof NumericalComparisonCondition) {
+                NumericalComparisonCondition c = (NumericalComparisonCondition)condition;
+                values = Arrays.asList(c.getLhs(), c.getRhs());
+            } else if (condition instanceof FileExistsCondition) {
+                values = Arrays.asList(((FileExistsCondition)condition).getFile());
+            } else if (condition instanceof FilesMatchCondition) {
+                FilesMatchCondition c = (FilesMatchCondition)condition;
+                values = Arrays.asList(c.getIncludes(), c.getExcludes());
+            } else {
+                return false;
+            }
+            for (String value: values) {
+                if (EnvironmentSnapshot.mayContainTokenMacros(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public int getCost() {
+            return cost;
+        }
+        
+        @Override
+        public boolean dependsOnResult() {
+            return dependsOnResult;
+        }
+        
+        @Override
+        public boolean dependsOnBuildState() {
+            return dependsOnBuildState;
+        }
+        
+        @Override
+        public boolean runPerform(AbstractBuild<?, ?> build, BuildListener listener) throws Exception {
+            Boolean probed = WorkspaceProbe.evaluate(build, getCondition(), listener);
+            if (probed != null) {
+                return probed;
+            }
+            Boolean matched = StringConditions.evaluate(build, getCondition(), listener);
+            if (matched != null) {
+                return matched;
+            }
+            return getCondition().runPerform(build, listener);
+        }
+    }
+    
+    /**
+     * Base for {@link AndCondition} and {@link OrCondition}.
+     */
+    public static abstract class CompositeCondition extends CompiledCondition {
+        private static final Comparator<CompiledCondition> BY_COST = new Comparator<CompiledCondition>() {
+            @Override
+            public int compare(CompiledCondition o1, CompiledCondition o2) {
+                return Integer.compare(o1.getCost(), o2.getCost());
+            }
+        };
+        
+        private final List<CompiledCondition> operands;
+        private final int cost;
+        private final boolean decidingResult;
+        private transient volatile String id;
+        
+        /**
+         * @param condition
+         * @param operands
+         * @param decidingResult the result of an operand that decides the result of this condition.
+         */
+        protected CompositeCondition(RunCondition condition, List<CompiledCondition> operands, boolean decidingResult) {
+            super(condition);
+            this.decidingResult = decidingResult;
+            List<CompiledCondition> sorted = new ArrayList<CompiledCondition>(operands);
+            // stable: operands with the same cost are evaluated in the configured order.
+            Collections.sort(sorted, BY_COST);
+            this.operands = Collections.unmodifiableList(sorted);
+            int cost = 0;
+            for (CompiledCondition operand: sorted) {
+                cost += operand.getCost();
+            }
+            this.cost = cost;
+        }
+        
+        /**
+         * @return operands in the order of estimated costs.
+         */
+        public List<CompiledCondition> getOperands() {
+            return operands;
+        }
+        
+        /**
+         * @return an identifier stable over restarts, used to store statistics.
+         */
+        public String getId() {
+            if (id == null) {
+                String xml;
+                try {
+                    xml = Items.XSTREAM2.toXML(getCondition());
+                } catch (RuntimeException e) {
+                    xml = getCondition().getClass().getName();
+                }
+                id = Util.getDigestOf(xml + "#" + operands.size());
+            }
+            return id;
+        }
+        
+        @Override
+        public boolean runPerform(AbstractBuild<?, ?> build, BuildListener listener) throws Exception {
+            ConditionStatistics.NodeStatistics statistics = null;
+            if (!ConditionStatistics.DISABLED && build != null) {
+                statistics = ConditionStatistics.forJob(build.getParent()).getNode(getId(), operands.size());
+            }
+            if (statistics == null) {
+                for (CompiledCondition operand: operands) {
+                    if (operand.runPerform(build, listener) == decidingResult) {
+                        return decidingResult;
+                    }
+                }
+                return !decidingResult;
+            }
+            for (int index: statistics.getOrder(this)) {
+                long start = System.nanoTime();
+                boolean result = operands.get(index).runPerform(build, listener);
+                statistics.record(index, System.nanoTime() - start, result == decidingResult);
+                if (result == decidingResult) {
+                    return decidingResult;
+                }
+            }
+            return !decidingResult;
+        }
+        
+        /**
+         * @return the sum of costs of operands, that is the cost in the worst case.
+         */
+        @Override
+        public int getCost() {
+            return cost;
+        }
+        
+        @Override
+        public boolean dependsOnResult() {
+            for (CompiledCondition operand: operands) {
+                if (operand.dependsOnResult()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        @Override
+        public boolean dependsOnBuildState() {
+            for (CompiledCondition operand: operands) {
+                if (operand.dependsOnBuildState()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+    
+    /**
+     * Satisfied if all operands are satisfied.
+     */
+    public static class AndCondition extends CompositeCondition {
+        public AndCondition(RunCondition condition, List<CompiledCondition> operands) {
+            super(condition, operands, false);
+        }
+    }
+    
+    /**
+     * Satisfied if any of operands is satisfied.
+     */
+    public static class OrCondition extends CompositeCondition {
+        public OrCondition(RunCondition condition, List<CompiledCondition> operands) {
+            super(condition, operands, true);
+        }
+    }
+    
+    /**
+     * Satisfied if the operand is not satisfied.
+     */
+    public static class NotCondition extends CompiledCondition {
+        private final CompiledCondition operand;
+        
+        public NotCondition(RunCondition condition, CompiledCondition operand) {
+            super(condition);
+            this.operand = operand;
+        }
+        
+        public CompiledCondition getOperand() {
+            return operand;
+        }
+        
+        @Override
+        public int getCost() {
+            return operand.getCost();
+        }
+        
+        @Override
+        public boolean dependsOnResult() {
+            return operand.dependsOnResult();
+        }
+        
+        @Override
+        public boolean dependsOnBuildState() {
+            return operand.dependsOnBuildState();
+        }
+        
+        @Override
+        public boolean runPerform(AbstractBuild<?, ?> build, BuildListener listener) throws Exception {
+            return !operand.runPerform(build, listener);
+        }
+    }
+}
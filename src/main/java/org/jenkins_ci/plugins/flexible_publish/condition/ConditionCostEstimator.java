@@ -0,0 +1,129 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import jenkins.model.Jenkins;
+
+/**
+ * Estimates the cost to evaluate a {@link RunCondition}.
+ * 
+ * Used to decide the order to evaluate conditions in {@link CompiledCondition}.
+ * Conditions with lower costs are evaluated first.
+ * Plugins can provide costs of their conditions by extending this.
+ */
+public abstract class ConditionCostEstimator implements ExtensionPoint {
+    /**
+     * Refers only the build in memory (e.g. the build result, causes).
+     */
+    public static final int CHEAP = 1;
+    /**
+     * Expands variables or token macros (e.g. string comparisons).
+     */
+    public static final int MODERATE = 10;
+    /**
+     * Used for conditions without estimations.
+     */
+    public static final int UNKNOWN = 50;
+    /**
+     * Accesses the workspace, which can be on an agent.
+     */
+    public static final int EXPENSIVE = 100;
+    /**
+     * Launches processes.
+     */
+    public static final int VERY_EXPENSIVE = 1000;
+    
+    /**
+     * @param condition the condition to estimate. Never be a logical condition (and, or, not).
+     * @return estimated cost. Negative if this doesn't know the condition.
+     */
+    public abstract int estimate(RunCondition condition);
+    
+    public static ExtensionList<ConditionCostEstimator> all() {
+        return ExtensionList.lookup(ConditionCostEstimator.class);
+    }
+    
+    /**
+     * @param condition
+     * @return the cost estimated by the first estimator knowing the condition. {@link #UNKNOWN} if none knows it.
+     */
+    public static int estimateCost(RunCondition condition) {
+        if (condition == null) {
+            return 0;
+        }
+        if (Jenkins.getInstanceOrNull() == null) {
+            // e.g. unit tests without Jenkins.
+            return UNKNOWN;
+        }
+        for (ConditionCostEstimator estimator: all()) {
+            int cost = estimator.estimate(condition);
+            if (cost >= 0) {
+                return cost;
+            }
+        }
+        return UNKNOWN;
+    }
+    
+    /**
+     * Costs of conditions provided by run-condition.
+     * 
+     * Classes are specified with names not to depend on a specific version of run-condition.
+     */
+    @Extension(ordinal = -100)
+    public static class CoreConditionCostEstimator extends ConditionCostEstimator {
+        private static final Map<String, Integer> COSTS = new HashMap<String, Integer>();
+        static {
+            final String core = "org.jenkins_ci.plugins.run_condition.core.";
+            COSTS.put(core + "AlwaysRun", 0);
+            COSTS.put(core + "NeverRun", 0);
+            COSTS.put(core + "StatusCondition", CHEAP);
+            COSTS.put(core + "CauseCondition", CHEAP);
+            COSTS.put(core + "DayCondition", CHEAP);
+            COSTS.put(core + "TimeCondition", CHEAP);
+            COSTS.put(core + "BooleanCondition", MODERATE);
+            COSTS.put(core + "StringsMatchCondition", MODERATE);
+            COSTS.put(core + "NumericalComparisonCondition", MODERATE);
+            COSTS.put(core + "ExpressionCondition", MODERATE);
+            COSTS.put(core + "FileExistsCondition", EXPENSIVE);
+            COSTS.put(core + "FilesMatchCondition", EXPENSIVE);
+            final String contributed = "org.jenkins_ci.plugins.run_condition.contributed.";
+            COSTS.put(contributed + "ShellCondition", VERY_EXPENSIVE);
+            COSTS.put(contributed + "BatchFileCondition", VERY_EXPENSIVE);
+        }
+        
+        @Override
+        public int estimate(RunCondition condition) {
+            Integer cost = COSTS.get(condition.getClass().getName());
+            return (cost != null) ? cost : -1;
+        }
+    }
+}
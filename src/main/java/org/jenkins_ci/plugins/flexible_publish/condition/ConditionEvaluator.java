@@ -0,0 +1,253 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.IOException;
+
+import org.jenkins_ci.plugins.flexible_publish.builder.MarkPerformedBuilder;
+import org.jenkins_ci.plugins.flexible_publish.jfr.JfrEvents;
+import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Result;
+
+/**
+ * Evaluates {@link RunCondition} without running build steps via {@link BuildStepRunner}.
+ * 
+ * When the condition throws an exception,
+ * the policy of {@link BuildStepRunner} is applied:
+ * <table>
+ *   <caption>Policies for exceptions</caption>
+ *   <tr><th>{@link BuildStepRunner.Fail}</th><td>marks the build failure, and doesn't run</td></tr>
+ *   <tr><th>{@link BuildStepRunner.Unstable}</th><td>marks the build unstable, and doesn't run</td></tr>
+ *   <tr><th>{@link BuildStepRunner.RunUnstable}</th><td>marks the build unstable, and runs</td></tr>
+ *   <tr><th>{@link BuildStepRunner.Run}</th><td>runs</td></tr>
+ *   <tr><th>{@link BuildStepRunner.DontRun}</th><td>doesn't run</td></tr>
+ * </table>
+ * For other {@link BuildStepRunner}s, the condition is evaluated again
+ * via {@link BuildStepRunner#perform(RunCondition, hudson.tasks.BuildStep, AbstractBuild, Launcher, BuildListener)}.
+ */
+public final class ConditionEvaluator {
+    private ConditionEvaluator() {
+    }
+    
+    /**
+     * Outcome of the condition.
+     */
+    public static enum Outcome {
+        /**
+         * The condition is satisfied.
+         */
+        RUN,
+        /**
+         * The condition is not satisfied.
+         */
+        SKIP,
+        /**
+         * The condition failed to be evaluated.
+         */
+        ERROR,
+    }
+    
+    /**
+     * The result of an evaluation.
+     */
+    public static final class Evaluation {
+        public static final Evaluation RUN = new Evaluation(Outcome.RUN, true, true, null);
+        public static final Evaluation SKIP = new Evaluation(Outcome.SKIP, false, true, null);
+        
+        private final Outcome outcome;
+        private final boolean run;
+        private final boolean success;
+        private final Exception exception;
+        
+        private Evaluation(Outcome outcome, boolean run, boolean success, Exception exception) {
+            this.outcome = outcome;
+            this.run = run;
+            this.success = success;
+            this.exception = exception;
+        }
+        
+        /**
+         * Restores an evaluation without the exception.
+         * 
+         * @param outcome
+         * @param run
+         * @param success
+         * @return the evaluation.
+         */
+        public static Evaluation of(Outcome outcome, boolean run, boolean success) {
+            return of(outcome, run, success, null);
+        }
+        
+        /**
+         * Restores an evaluation.
+         * 
+         * @param outcome
+         * @param run
+         * @param success
+         * @param exception the exception thrown from the condition. null unless {@link Outcome#ERROR}.
+         * @return the evaluation.
+         */
+        public static Evaluation of(Outcome outcome, boolean run, boolean success, Exception exception) {
+            if (outcome == Outcome.RUN && run && success && exception == null) {
+                return RUN;
+            }
+            if (outcome == Outcome.SKIP && !run && success && exception == null) {
+                return SKIP;
+            }
+            return new Evaluation(outcome, run, success, exception);
+        }
+        
+        public Outcome getOutcome() {
+            return outcome;
+        }
+        
+        /**
+         * @return whether build steps should run, applying the policy of {@link BuildStepRunner} for {@link Outcome#ERROR}.
+         */
+        public boolean isRun() {
+            return run;
+        }
+        
+        /**
+         * @return false if the evaluation failed and the runner treats it as a failure of the step.
+         */
+        public boolean isSuccess() {
+            return success;
+        }
+        
+        /**
+         * @return the exception thrown from the condition. null unless {@link Outcome#ERROR}.
+         */
+        public Exception getException() {
+            return exception;
+        }
+    }
+    
+    /**
+     * Evaluates the condition in the perform phase.
+     * 
+     * @param condition
+     * @param runner applied when the condition throws an exception.
+     * @param build
+     * @param launcher may be null. Used only for {@link BuildStepRunner}s not provided by run-condition.
+     * @param listener
+     * @return the result of the evaluation.
+     * @throws InterruptedException the build is aborted.
+     * @throws IOException thrown from {@link BuildStepRunner}s not provided by run-condition.
+     */
+    public static Evaluation evaluate(RunCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        return evaluate(CompiledCondition.compile(condition), runner, build, launcher, listener);
+    }
+    
+    /**
+     * Evaluates the compiled condition in the perform phase.
+     * 
+     * @param condition
+     * @param runner applied when the condition throws an exception.
+     * @param build
+     * @param launcher may be null. Used only for {@link BuildStepRunner}s not provided by run-condition.
+     * @param listener
+     * @return the result of the evaluation.
+     * @throws InterruptedException the build is aborted.
+     * @throws IOException thrown from {@link BuildStepRunner}s not provided by run-condition.
+     */
+    public static Evaluation evaluate(CompiledCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        JfrEvents.Span span = JfrEvents.begin(
+                JfrEvents.Kind.CONDITION,
+                build,
+                (condition.getCondition() != null) ? condition.getCondition().getClass().getName() : null,
+                null
+        );
+        Evaluation evaluation = null;
+        EvaluationScope scope = EvaluationScope.open(build);
+        try {
+            evaluation = evaluateWithoutEvent(condition, runner, build, launcher, listener);
+            return evaluation;
+        } finally {
+            scope.close();
+            span.end((evaluation != null) ? evaluation.getOutcome().name() : "INTERRUPTED");
+        }
+    }
+    
+    private static Evaluation evaluateWithoutEvent(CompiledCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+            throws InterruptedException, IOException {
+        try {
+            return condition.runPerform(build, listener) ? Evaluation.RUN : Evaluation.SKIP;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            return onException(condition.getCondition(), runner, build, launcher, listener, e);
+        }
+    }
+    
+    private static Evaluation onException(RunCondition condition, BuildStepRunner runner,
+            AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener, Exception e)
+            throws InterruptedException, IOException {
+        if (runner instanceof BuildStepRunner.Fail) {
+            printException(listener, e);
+            build.setResult(Result.FAILURE);
+            return new Evaluation(Outcome.ERROR, false, false, e);
+        }
+        if (runner instanceof BuildStepRunner.Unstable) {
+            printException(listener, e);
+            build.setResult(Result.UNSTABLE);
+            return new Evaluation(Outcome.ERROR, false, true, e);
+        }
+        if (runner instanceof BuildStepRunner.RunUnstable) {
+            printException(listener, e);
+            build.setResult(Result.UNSTABLE);
+            return new Evaluation(Outcome.ERROR, true, true, e);
+        }
+        if (runner instanceof BuildStepRunner.Run) {
+            printException(listener, e);
+            return new Evaluation(Outcome.ERROR, true, true, e);
+        }
+        if (runner instanceof BuildStepRunner.DontRun) {
+            printException(listener, e);
+            return new Evaluation(Outcome.ERROR, false, true, e);
+        }
+        // Unknown runner. Let it decide.
+        MarkPerformedBuilder marker = new MarkPerformedBuilder();
+        boolean success = runner.perform(condition, marker, build, launcher, listener);
+        return new Evaluation(Outcome.ERROR, marker.isPerformed(), success, e);
+    }
+    
+    private static void printException(BuildListener listener, Exception e) {
+        listener.getLogger().println(String.format(
+                "[flexible-publish] Exception while evaluating the condition: %s",
+                e.getMessage()
+        ));
+        e.printStackTrace(listener.getLogger());
+    }
+}
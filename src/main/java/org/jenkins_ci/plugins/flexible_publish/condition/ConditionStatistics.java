@@ -0,0 +1,308 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Items;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+
+/**
+ * Observed costs and selectivities of operands of {@link CompiledCondition.CompositeCondition}s in a job.
+ * 
+ * Stored in {@value #FILENAME} in the directory of the job to survive restarts,
+ * and saved when a build completes.
+ * Operands that are cheap and likely to decide the result are evaluated first.
+ * Disabled with the system property
+ * {@code org.jenkins_ci.plugins.flexible_publish.condition.ConditionStatistics.disabled=true}.
+ */
+public class ConditionStatistics {
+    private static final Logger LOGGER = Logger.getLogger(ConditionStatistics.class.getName());
+    public static final String FILENAME = "flexible-publish-condition-statistics.xml";
+    public static boolean DISABLED = Boolean.getBoolean(ConditionStatistics.class.getName() + ".disabled");
+    
+    /**
+     * Statistics are kept for this number of composite conditions at most.
+     * Ones not used recently are removed.
+     */
+    private static final int MAX_NODES = 100;
+    
+    private static final Map<Job<?, ?>, ConditionStatistics> INSTANCES = new WeakHashMap<Job<?, ?>, ConditionStatistics>();
+    
+    private LinkedHashMap<String, NodeStatistics> nodes = newNodes();
+    /**
+     * Not to prevent the job from being collected from {@link #INSTANCES}.
+     */
+    private transient WeakReference<Job<?, ?>> job;
+    private transient boolean dirty;
+    
+    /**
+     * Statistics for operands of a composite condition.
+     */
+    public static class NodeStatistics {
+        /**
+         * Reorders operands every this number of evaluations.
+         */
+        private static final int REORDER_INTERVAL = 16;
+        /**
+         * The weight of the estimation from {@link ConditionCostEstimator}, in number of evaluations.
+         */
+        private static final int PRIOR_WEIGHT = 4;
+        /**
+         * Nanoseconds to evaluate a condition with the cost 1.
+         */
+        private static final long NANOS_PER_COST = 10000L;
+        
+        private final long[] evaluations;
+        private final long[] decisions;
+        private final long[] nanos;
+        private transient int[] order;
+        private transient int recorded;
+        /**
+         * Updates are locked with the owner, as the owner may be saved at the same time.
+         */
+        private transient ConditionStatistics owner;
+        
+        public NodeStatistics(int operands) {
+            evaluations = new long[operands];
+            decisions = new long[operands];
+            nanos = new long[operands];
+        }
+        
+        private Object getLock() {
+            return (owner != null) ? owner : this;
+        }
+        
+        public int size() {
+            return evaluations.length;
+        }
+        
+        /**
+         * @param operand the index of the operand.
+         * @param elapsedNanos the time to evaluate it.
+         * @param decided whether the operand decided the result of the composite condition.
+         */
+        public void record(int operand, long elapsedNanos, boolean decided) {
+            synchronized (getLock()) {
+                ++evaluations[operand];
+                if (decided) {
+                    ++decisions[operand];
+                }
+                nanos[operand] += elapsedNanos;
+                if (++recorded >= REORDER_INTERVAL) {
+                    order = null;
+                }
+                if (owner != null) {
+                    owner.dirty = true;
+                }
+            }
+        }
+        
+        /**
+         * @param condition
+         * @return the indices of operands in the order to evaluate.
+         */
+        public int[] getOrder(CompiledCondition.CompositeCondition condition) {
+            synchronized (getLock()) {
+                if (order == null) {
+                    order = computeOrder(condition);
+                    recorded = 0;
+                }
+                return order;
+            }
+        }
+        
+        private int[] computeOrder(CompiledCondition.CompositeCondition condition) {
+            final double[] scores = new double[size()];
+            for (int i = 0; i < size(); ++i) {
+                long cost = condition.getOperands().get(i).getCost();
+                // expected time to evaluate divided by the probability to decide the result.
+                double meanNanos = (double)(nanos[i] + PRIOR_WEIGHT * cost * NANOS_PER_COST) / (evaluations[i] + PRIOR_WEIGHT);
+                double probability = (decisions[i] + PRIOR_WEIGHT * 0.5) / (evaluations[i] + PRIOR_WEIGHT);
+                scores[i] = meanNanos / probability;
+            }
+            Integer[] indices = new Integer[size()];
+            for (int i = 0; i < size(); ++i) {
+                indices[i] = i;
+            }
+            // stable: keeps the order of costs for the same scores.
+            Arrays.sort(indices, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Double.compare(scores[o1], scores[o2]);
+                }
+            });
+            int[] newOrder = new int[size()];
+            for (int i = 0; i < size(); ++i) {
+                newOrder[i] = indices[i];
+            }
+            return newOrder;
+        }
+        
+        public long getEvaluations(int operand) {
+            synchronized (getLock()) {
+                return evaluations[operand];
+            }
+        }
+        
+        public long getDecisions(int operand) {
+            synchronized (getLock()) {
+                return decisions[operand];
+            }
+        }
+        
+        public long getNanos(int operand) {
+            synchronized (getLock()) {
+                return nanos[operand];
+            }
+        }
+    }
+    
+    /**
+     * @param job
+     * @return statistics for the job. loaded from the disk for the first time.
+     */
+    public static ConditionStatistics forJob(Job<?, ?> job) {
+        synchronized (INSTANCES) {
+            ConditionStatistics statistics = INSTANCES.get(job);
+            if (statistics == null) {
+                statistics = load(new File(job.getRootDir(), FILENAME));
+                statistics.job = new WeakReference<Job<?, ?>>(job);
+                INSTANCES.put(job, statistics);
+            }
+            return statistics;
+        }
+    }
+    
+    private static ConditionStatistics load(File file) {
+        XmlFile xml = new XmlFile(Items.XSTREAM2, file);
+        ConditionStatistics statistics = null;
+        if (xml.exists()) {
+            try {
+                statistics = (ConditionStatistics)xml.read();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Failed to load %s", file), e);
+            } catch (ClassCastException e) {
+                LOGGER.log(Level.WARNING, String.format("Failed to load %s", file), e);
+            }
+        }
+        if (statistics == null) {
+            statistics = new ConditionStatistics();
+        }
+        return statistics;
+    }
+    
+    private static LinkedHashMap<String, NodeStatistics> newNodes() {
+        // in the access order to remove the least recently used one.
+        return new LinkedHashMap<String, NodeStatistics>(16, 0.75f, true);
+    }
+    
+    private Object readResolve() {
+        // XStream restores the map in the insertion order.
+        LinkedHashMap<String, NodeStatistics> loaded = nodes;
+        nodes = newNodes();
+        if (loaded != null) {
+            nodes.putAll(loaded);
+        }
+        for (NodeStatistics node: nodes.values()) {
+            node.owner = this;
+        }
+        return this;
+    }
+    
+    /**
+     * @param id the id of the composite condition.
+     * @param operands the number of operands.
+     * @return statistics for the composite condition.
+     */
+    public synchronized NodeStatistics getNode(String id, int operands) {
+        NodeStatistics node = nodes.get(id);
+        if (node == null || node.size() != operands) {
+            node = new NodeStatistics(operands);
+            node.owner = this;
+            nodes.put(id, node);
+            while (nodes.size() > MAX_NODES) {
+                // the least recently used one.
+                nodes.remove(nodes.keySet().iterator().next());
+            }
+            dirty = true;
+        }
+        return node;
+    }
+    
+    /**
+     * Saves statistics if updated.
+     * 
+     * The file is resolved from the job each time, as the job may be renamed or deleted.
+     */
+    public synchronized void saveIfDirty() {
+        Job<?, ?> owner = (job != null) ? job.get() : null;
+        if (!dirty || owner == null) {
+            return;
+        }
+        File rootDir = owner.getRootDir();
+        if (!rootDir.isDirectory()) {
+            // deleted. should not be recreated.
+            return;
+        }
+        File file = new File(rootDir, FILENAME);
+        try {
+            new XmlFile(Items.XSTREAM2, file).write(this);
+            dirty = false;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, String.format("Failed to save %s", file), e);
+        }
+    }
+    
+    /**
+     * Saves statistics when a build completes.
+     */
+    @Extension
+    public static class SaveOnCompleted extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> r, TaskListener listener) {
+            ConditionStatistics statistics;
+            synchronized (INSTANCES) {
+                statistics = INSTANCES.get(r.getParent());
+            }
+            if (statistics != null) {
+                statistics.saveIfDirty();
+            }
+        }
+    }
+}
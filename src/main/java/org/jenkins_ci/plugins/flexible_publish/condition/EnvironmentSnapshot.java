@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jenkinsci.plugins.tokenmacro.TokenMacro;
+
+import hudson.EnvVars;
+import hudson.model.AbstractBuild;
+import hudson.model.Computer;
+import hudson.model.EnvironmentContributingAction;
+import hudson.model.TaskListener;
+
+/**
+ * Environment variables of a build, computed once and shared by condition evaluations
+ * in an {@link EvaluationScope}.
+ * 
+ * {@link AbstractBuild#getEnvironment(TaskListener)} runs all
+ * {@link hudson.model.EnvironmentContributor}s every time.
+ * The snapshot is computed again only when
+ * <ul>
+ *   <li>{@link EnvironmentContributingAction}s of the build are added or removed,</li>
+ *   <li>evaluated on another computer, or</li>
+ *   <li>{@link EvaluationScope#invalidate()} is called, which is done after each publisher in flexible publish runs.</li>
+ * </ul>
+ * Outside of scopes, the environment is computed for each call.
+ */
+public final class EnvironmentSnapshot {
+    private final EnvVars env;
+    private final List<EnvironmentContributingAction> actions;
+    private final Computer computer;
+    private final Map<String, String> expanded = new HashMap<String, String>();
+    
+    /**
+     * A reference to a variable: {@code $NAME} or {@code ${NAME}}.
+     * Token macros with parameters (e.g. {@code ${BUILD_LOG_REGEX,regex="..."}}) and {@code $$} don't match.
+     */
+    private static final Pattern VARIABLE = Pattern.compile("\\$(?:\\{([A-Za-z_][A-Za-z0-9_.]*)\\}|([A-Za-z_][A-Za-z0-9_]*))");
+    
+    private EnvironmentSnapshot(EnvVars env, List<EnvironmentContributingAction> actions, Computer computer) {
+        this.env = env;
+        this.actions = actions;
+        this.computer = computer;
+    }
+    
+    static EnvironmentSnapshot take(AbstractBuild<?, ?> build, TaskListener listener)
+            throws IOException, InterruptedException {
+        List<EnvironmentContributingAction> actions = build.getActions(EnvironmentContributingAction.class);
+        return new EnvironmentSnapshot(build.getEnvironment(listener), actions, Computer.currentComputer());
+    }
+    
+    boolean isValidFor(AbstractBuild<?, ?> build) {
+        List<EnvironmentContributingAction> currentActions = build.getActions(EnvironmentContributingAction.class);
+        if (computer != Computer.currentComputer() || actions.size() != currentActions.size()) {
+            return false;
+        }
+        for (int i = 0; i < actions.size(); ++i) {
+            if (actions.get(i) != currentActions.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Expands environment variables in a string.
+     * Results are cached in the snapshot.
+     * 
+     * Only strings referring environment variables defined in the build are expanded.
+     * Those are expanded to the same string as {@code TokenMacro.expandAll()} used by run-condition,
+     * which expands environment variables before token macros.
+     * 
+     * @param value
+     * @return the expanded string, or null if it may contain token macros.
+     */
+    public String expand(String value) {
+        synchronized (expanded) {
+            if (expanded.containsKey(value)) {
+                return expanded.get(value);
+            }
+        }
+        String result = refersOnlyEnvironment(value) ? env.expand(value) : null;
+        if (result != null && result.indexOf('$') >= 0) {
+            // token macros may be in values.
+            result = null;
+        }
+        synchronized (expanded) {
+            expanded.put(value, result);
+        }
+        return result;
+    }
+    
+    private boolean refersOnlyEnvironment(String value) {
+        List<String> names = getVariableNames(value);
+        if (names == null) {
+            return false;
+        }
+        for (String name: names) {
+            if (!env.containsKey(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @param value
+     * @return names of variables referred in the string, or null if it refers something other than variables.
+     */
+    private static List<String> getVariableNames(String value) {
+        List<String> names = new ArrayList<String>();
+        Matcher m = VARIABLE.matcher(value);
+        for (int i = value.indexOf('$'); i >= 0; i = value.indexOf('$', m.end())) {
+            if (!m.region(i, value.length()).lookingAt()) {
+                return null;
+            }
+            names.add((m.group(1) != null) ? m.group(1) : m.group(2));
+        }
+        return names;
+    }
+    
+    /**
+     * Tests whether a string may contain token macros without the environment of a build.
+     * 
+     * A string doesn't if it refers nothing but variables whose names no token macro accepts,
+     * as those can be only environment variables.
+     * 
+     * @param value may be null.
+     * @return true if the string may contain token macros.
+     */
+    public static boolean mayContainTokenMacros(String value) {
+        if (value == null || value.indexOf('$') < 0) {
+            return false;
+        }
+        List<String> names = getVariableNames(value);
+        if (names == null) {
+            return true;
+        }
+        for (String name: names) {
+            for (TokenMacro macro: TokenMacro.all()) {
+                if (macro.acceptsMacroName(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Expands environment variables in a string,
+     * with the snapshot of the {@link EvaluationScope} active for the build if any.
+     * 
+     * @param build
+     * @param listener
+     * @param value
+     * @return the expanded string, or null if it may contain token macros.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static String expand(AbstractBuild<?, ?> build, TaskListener listener, String value)
+            throws IOException, InterruptedException {
+        if (value == null || value.indexOf('$') < 0) {
+            return value;
+        }
+        EvaluationScope scope = EvaluationScope.current(build);
+        EnvironmentSnapshot snapshot = (scope != null) ? scope.getEnvironment(listener) : take(build, listener);
+        return snapshot.expand(value);
+    }
+}
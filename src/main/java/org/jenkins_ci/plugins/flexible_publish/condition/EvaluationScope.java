@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+
+/**
+ * State shared by condition evaluations of a build
+ * while flexible publish runs publishers, aggregates a matrix run or evaluates a trigger.
+ * 
+ * A scope is bound to the thread which opened it, and everything in it is discarded when it is closed,
+ * so nothing is retained after the evaluation:
+ * <pre>
+ * EvaluationScope scope = EvaluationScope.open(build);
+ * try {
+ *     // evaluate conditions
+ * } finally {
+ *     scope.close();
+ * }
+ * </pre>
+ * Opening a scope for a build which already has one on the thread joins the existing scope.
+ * Use {@link #join()} to share a scope with another thread.
+ */
+public final class EvaluationScope {
+    private static final ThreadLocal<Map<AbstractBuild<?, ?>, Binding>> BINDINGS = new ThreadLocal<Map<AbstractBuild<?, ?>, Binding>>();
+    
+    private final AbstractBuild<?, ?> build;
+    private EnvironmentSnapshot environment;
+    private final Map<String, Boolean> fileResults = new HashMap<String, Boolean>();
+    private List<CompiledCondition> fileConditions = Collections.emptyList();
+    private final Object probeLock = new Object();
+    private int generation;
+    
+    private static final class Binding {
+        private final EvaluationScope scope;
+        private final Binding previous;
+        private int depth = 1;
+        
+        private Binding(EvaluationScope scope, Binding previous) {
+            this.scope = scope;
+            this.previous = previous;
+        }
+    }
+    
+    private EvaluationScope(AbstractBuild<?, ?> build) {
+        this.build = build;
+    }
+    
+    /**
+     * Opens a scope for the build on the current thread.
+     * 
+     * @param build
+     * @return the scope. Must be closed with {@link #close()}.
+     */
+    public static EvaluationScope open(AbstractBuild<?, ?> build) {
+        EvaluationScope current = current(build);
+        return ((current != null) ? current : new EvaluationScope(build)).join();
+    }
+    
+    /**
+     * @param build
+     * @return the scope of the build active on the current thread. null if not available.
+     */
+    public static EvaluationScope current(AbstractBuild<?, ?> build) {
+        Map<AbstractBuild<?, ?>, Binding> bindings = BINDINGS.get();
+        Binding binding = (bindings != null) ? bindings.get(build) : null;
+        return (binding != null) ? binding.scope : null;
+    }
+    
+    /**
+     * Makes this scope active on the current thread.
+     * 
+     * @return this scope. Must be closed with {@link #close()} on the current thread.
+     */
+    public EvaluationScope join() {
+        Map<AbstractBuild<?, ?>, Binding> bindings = BINDINGS.get();
+        if (bindings == null) {
+            bindings = new IdentityHashMap<AbstractBuild<?, ?>, Binding>();
+            BINDINGS.set(bindings);
+        }
+        Binding binding = bindings.get(build);
+        if (binding != null && binding.scope == this) {
+            ++binding.depth;
+        } else {
+            bindings.put(build, new Binding(this, binding));
+        }
+        return this;
+    }
+    
+    /**
+     * Leaves this scope on the current thread.
+     */
+    public void close() {
+        Map<AbstractBuild<?, ?>, Binding> bindings = BINDINGS.get();
+        Binding binding = (bindings != null) ? bindings.get(build) : null;
+        if (binding == null || binding.scope != this || --binding.depth > 0) {
+            return;
+        }
+        if (binding.previous != null) {
+            bindings.put(build, binding.previous);
+        } else {
+            bindings.remove(build);
+            if (bindings.isEmpty()) {
+                BINDINGS.remove();
+            }
+        }
+    }
+    
+    /**
+     * Discards the state as publishers may have changed the environment and files.
+     */
+    public synchronized void invalidate() {
+        environment = null;
+        fileResults.clear();
+        ++generation;
+    }
+    
+    /**
+     * @return the number of times this scope was invalidated.
+     *      Results evaluated in the scope with another generation may be stale.
+     */
+    public synchronized int getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Discards the state of the scope of the build active on the current thread, if any.
+     * 
+     * @param build
+     * @see #invalidate()
+     */
+    public static void invalidate(AbstractBuild<?, ?> build) {
+        EvaluationScope scope = current(build);
+        if (scope != null) {
+            scope.invalidate();
+        }
+    }
+    
+    /**
+     * @param listener
+     * @return the environment of the build, computed once in this scope.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    synchronized EnvironmentSnapshot getEnvironment(TaskListener listener) throws IOException, InterruptedException {
+        if (environment == null || !environment.isValidFor(build)) {
+            environment = EnvironmentSnapshot.take(build, listener);
+        }
+        return environment;
+    }
+    
+    /**
+     * @param key
+     * @return whether a condition testing files is already resolved or tried to resolve.
+     * @see WorkspaceProbe
+     */
+    synchronized boolean hasFileResult(String key) {
+        return fileResults.containsKey(key);
+    }
+    
+    /**
+     * @param key
+     * @return the result of a condition testing files. null if not evaluated yet
+     *      or to be evaluated by the condition itself.
+     * @see WorkspaceProbe
+     */
+    synchronized Boolean getFileResult(String key) {
+        return fileResults.get(key);
+    }
+    
+    /**
+     * @param key
+     * @param result null if the condition should be evaluated by itself.
+     */
+    synchronized void putFileResult(String key, Boolean result) {
+        fileResults.put(key, result);
+    }
+    
+    /**
+     * @return conditions to resolve at once with {@link WorkspaceProbe}.
+     */
+    synchronized List<CompiledCondition> getFileConditions() {
+        return fileConditions;
+    }
+    
+    synchronized void setFileConditions(List<CompiledCondition> fileConditions) {
+        this.fileConditions = fileConditions;
+    }
+    
+    /**
+     * @return the lock held while probing files, so that concurrent evaluations wait for one probe.
+     */
+    Object getProbeLock() {
+        return probeLock;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Result;
+
+/**
+ * A condition evaluated in advance.
+ * 
+ * Returns the result (or throws the exception) of the evaluation in advance.
+ * Evaluated again if the condition depends on the build result
+ * and the build result is changed since the evaluation,
+ * or if the condition depends on the state of the build (e.g. files in the workspace)
+ * and the {@link EvaluationScope} is invalidated since the evaluation as publishers ran.
+ */
+public class PreEvaluatedCondition extends CompiledCondition {
+    private final CompiledCondition original;
+    private final Result resultAtEvaluation;
+    private final EvaluationScope scope;
+    private final int generation;
+    private final boolean satisfied;
+    private final Exception exception;
+    
+    /**
+     * @param original the evaluated condition.
+     * @param resultAtEvaluation the build result when evaluated.
+     * @param scope the scope the condition was evaluated in. null if not in a scope.
+     * @param satisfied the result of the evaluation.
+     * @param exception the exception thrown in the evaluation. null if not thrown.
+     */
+    public PreEvaluatedCondition(
+            CompiledCondition original,
+            Result resultAtEvaluation,
+            EvaluationScope scope,
+            boolean satisfied,
+            Exception exception
+    ) {
+        super(original.getCondition());
+        this.original = original;
+        this.resultAtEvaluation = resultAtEvaluation;
+        this.scope = scope;
+        this.generation = (scope != null) ? scope.getGeneration() : 0;
+        this.satisfied = satisfied;
+        this.exception = exception;
+    }
+    
+    public CompiledCondition getOriginal() {
+        return original;
+    }
+    
+    @Override
+    public int getCost() {
+        return 0;
+    }
+    
+    @Override
+    public boolean dependsOnResult() {
+        return original.dependsOnResult();
+    }
+    
+    @Override
+    public boolean dependsOnBuildState() {
+        return original.dependsOnBuildState();
+    }
+    
+    /**
+     * @param build
+     * @return true if publishers may have changed the state of the build since the evaluation.
+     */
+    private boolean isStale(AbstractBuild<?, ?> build) {
+        if (scope == null || scope != EvaluationScope.current(build)) {
+            // changes are not tracked.
+            return true;
+        }
+        return scope.getGeneration() != generation;
+    }
+    
+    @Override
+    public boolean runPerform(AbstractBuild<?, ?> build, BuildListener listener) throws Exception {
+        if (original.dependsOnResult() && build.getResult() != resultAtEvaluation) {
+            return original.runPerform(build, listener);
+        }
+        if (original.dependsOnBuildState() && isStale(build)) {
+            return original.runPerform(build, listener);
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        return satisfied;
+    }
+}
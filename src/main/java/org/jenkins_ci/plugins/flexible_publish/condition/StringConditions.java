@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.IOException;
+
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+import org.jenkins_ci.plugins.run_condition.core.ExpressionCondition;
+import org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition;
+
+import hudson.model.AbstractBuild;
+import hudson.model.TaskListener;
+
+/**
+ * Evaluates {@link StringsMatchCondition} and {@link ExpressionCondition}
+ * with strings expanded with {@link EnvironmentSnapshot#expand(AbstractBuild, TaskListener, String)}
+ * and patterns compiled with {@link PatternCache}.
+ * 
+ * Only conditions whose strings refer nothing but environment variables of the build are evaluated here,
+ * and print the same output as run-condition does.
+ * Conditions which may contain token macros (e.g. {@code ${BUILD_LOG_REGEX,...}})
+ * are evaluated by themselves with token-macro.
+ */
+public final class StringConditions {
+    private StringConditions() {
+    }
+    
+    /**
+     * @param build
+     * @param condition
+     * @param listener
+     * @return the result of the condition, or null if not evaluated here.
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    public static Boolean evaluate(AbstractBuild<?, ?> build, RunCondition condition, TaskListener listener)
+            throws IOException, InterruptedException {
+        if (condition instanceof StringsMatchCondition) {
+            StringsMatchCondition c = (StringsMatchCondition)condition;
+            String arg1 = EnvironmentSnapshot.expand(build, listener, c.getArg1());
+            String arg2 = EnvironmentSnapshot.expand(build, listener, c.getArg2());
+            if (arg1 == null || arg2 == null) {
+                return null;
+            }
+            listener.getLogger().println(String.format(
+                    "Strings match run condition: string 1=[%s], string 2=[%s]",
+                    arg1,
+                    arg2
+            ));
+            return c.isIgnoreCase() ? arg1.equalsIgnoreCase(arg2) : arg1.equals(arg2);
+        }
+        if (condition instanceof ExpressionCondition) {
+            ExpressionCondition c = (ExpressionCondition)condition;
+            String expression = EnvironmentSnapshot.expand(build, listener, c.getExpression());
+            String label = EnvironmentSnapshot.expand(build, listener, c.getLabel());
+            if (expression == null || label == null) {
+                return null;
+            }
+            listener.getLogger().println(String.format(
+                    "Regular expression run condition: Expression=[%s], Label=[%s]",
+                    expression,
+                    label
+            ));
+            return PatternCache.compile(expression).matcher(label).matches();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.condition;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jenkins.security.MasterToSlaveCallable;
+
+import org.apache.commons.lang.StringUtils;
+import org.jenkins_ci.plugins.flexible_publish.ConditionOutcomeAction;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+import org.jenkins_ci.plugins.run_condition.common.BaseDirectory;
+import org.jenkins_ci.plugins.run_condition.core.FileExistsCondition;
+import org.jenkins_ci.plugins.run_condition.core.FilesMatchCondition;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+
+/**
+ * Resolves {@link FileExistsCondition}s and {@link FilesMatchCondition}s
+ * of conditional publishers in an {@link EvaluationScope} with one remote call per computer.
+ * 
+ * Conditions are registered with {@link #prepare(AbstractBuild, List)}.
+ * When one of them is evaluated first, the files of all registered conditions are tested at once
+ * with {@link FilePath#exists()} and {@link FilePath#list(String, String)} as the conditions do,
+ * and the results are kept in the scope, keyed by the digest of the condition configuration,
+ * until a publisher runs, as it may change files.
+ * 
+ * Conditions not resolvable in advance
+ * (e.g. with token macros other than environment variables, or with a missing base directory)
+ * and conditions whose probe failed are evaluated by themselves,
+ * and report problems by themselves.
+ */
+public final class WorkspaceProbe {
+    private static final Logger LOGGER = Logger.getLogger(WorkspaceProbe.class.getName());
+    
+    private WorkspaceProbe() {
+    }
+    
+    /**
+     * Registers conditions to resolve at once in the scope active for the build.
+     * 
+     * @param build
+     * @param conditions
+     */
+    public static void prepare(AbstractBuild<?, ?> build, List<CompiledCondition> conditions) {
+        EvaluationScope scope = EvaluationScope.current(build);
+        if (scope != null) {
+            scope.setFileConditions(new ArrayList<CompiledCondition>(conditions));
+        }
+    }
+    
+    /**
+     * @param build
+     * @param condition
+     * @param listener
+     * @return the result of the condition, or null if the condition doesn't test files.
+     * @throws Exception thrown from the condition.
+     */
+    public static Boolean evaluate(AbstractBuild<?, ?> build, RunCondition condition, BuildListener listener)
+            throws Exception {
+        if (!isFileCondition(condition)) {
+            return null;
+        }
+        EvaluationScope scope = (build != null) ? EvaluationScope.current(build) : null;
+        String key = (scope != null) ? ConditionOutcomeAction.keyOf(condition, null) : null;
+        if (key == null) {
+            return condition.runPerform(build, listener);
+        }
+        Boolean result;
+        synchronized (scope.getProbeLock()) {
+            if (!scope.hasFileResult(key)) {
+                probe(build, scope, condition, listener);
+            }
+            result = scope.getFileResult(key);
+        }
+        if (result != null) {
+            listener.getLogger().println(String.format(
+                    "[flexible-publish] %s: resolved in advance: %s",
+                    condition.getDescriptor().getDisplayName(),
+                    result
+            ));
+            return result;
+        }
+        result = condition.runPerform(build, listener);
+        scope.putFileResult(key, result);
+        return result;
+    }
+    
+    private static boolean isFileCondition(RunCondition condition) {
+        return (condition instanceof FileExistsCondition) || (condition instanceof FilesMatchCondition);
+    }
+    
+    /**
+     * Tests files of all registered conditions not resolved yet, and the condition to evaluate.
+     */
+    private static void probe(AbstractBuild<?, ?> build, EvaluationScope scope, RunCondition condition, TaskListener listener)
+            throws InterruptedException {
+        Map<VirtualChannel, Map<String, Probe>> probesByChannel = new LinkedHashMap<VirtualChannel, Map<String, Probe>>();
+        for (CompiledCondition compiled: scope.getFileConditions()) {
+            collect(build, scope, compiled, listener, probesByChannel);
+        }
+        collect(build, scope, CompiledCondition.compile(condition), listener, probesByChannel);
+        
+        int count = 0;
+        for (Map.Entry<VirtualChannel, Map<String, Probe>> entry: probesByChannel.entrySet()) {
+            List<String> keys = new ArrayList<String>(entry.getValue().keySet());
+            Boolean[] results = null;
+            try {
+                results = entry.getKey().call(new ProbeCallable(new ArrayList<Probe>(entry.getValue().values())));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, String.format("Failed to probe files for %s", build), e);
+                listener.getLogger().println(String.format(
+                        "[flexible-publish] failed to probe files, conditions are evaluated by themselves: %s",
+                        e.getMessage()
+                ));
+            }
+            for (int i = 0; i < keys.size(); ++i) {
+                scope.putFileResult(keys.get(i), (results != null) ? results[i] : null);
+            }
+            count += keys.size();
+        }
+        if (count > 1) {
+            listener.getLogger().println(String.format(
+                    "[flexible-publish] probed files of %d conditions in %d remote call(s)",
+                    count,
+                    probesByChannel.size()
+            ));
+        }
+    }
+    
+    private static void collect(
+            AbstractBuild<?, ?> build,
+            EvaluationScope scope,
+            CompiledCondition compiled,
+            TaskListener listener,
+            Map<VirtualChannel, Map<String, Probe>> probesByChannel
+    ) throws InterruptedException {
+        if (compiled instanceof CompiledCondition.CompositeCondition) {
+            for (CompiledCondition operand: ((CompiledCondition.CompositeCondition)compiled).getOperands()) {
+                collect(build, scope, operand, listener, probesByChannel);
+            }
+            return;
+        }
+        if (compiled instanceof CompiledCondition.NotCondition) {
+            collect(build, scope, ((CompiledCondition.NotCondition)compiled).getOperand(), listener, probesByChannel);
+            return;
+        }
+        RunCondition condition = compiled.getCondition();
+        if (!isFileCondition(condition)) {
+            return;
+        }
+        String key = ConditionOutcomeAction.keyOf(condition, null);
+        if (key == null || scope.hasFileResult(key)) {
+            return;
+        }
+        Probe probe = null;
+        FilePath base = null;
+        try {
+            if (condition instanceof FileExistsCondition) {
+                FileExistsCondition c = (FileExistsCondition)condition;
+                base = getBaseDirectory(build, c.getBaseDir());
+                String file = EnvironmentSnapshot.expand(build, listener, Util.fixNull(c.getFile()));
+                if (base != null && file != null) {
+                    probe = new Probe(base.child(file).getRemote(), null, null);
+                }
+            } else {
+                FilesMatchCondition c = (FilesMatchCondition)condition;
+                base = getBaseDirectory(build, c.getBaseDir());
+                String includes = EnvironmentSnapshot.expand(build, listener, Util.fixNull(c.getIncludes()));
+                String excludes = EnvironmentSnapshot.expand(build, listener, Util.fixNull(c.getExcludes()));
+                if (base != null && !StringUtils.isBlank(includes) && excludes != null) {
+                    probe = new Probe(base.getRemote(), includes, excludes);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot resolve files in advance", e);
+        }
+        if (probe == null) {
+            // evaluated by the condition itself.
+            scope.putFileResult(key, null);
+            return;
+        }
+        Map<String, Probe> probes = probesByChannel.get(base.getChannel());
+        if (probes == null) {
+            probes = new LinkedHashMap<String, Probe>();
+            probesByChannel.put(base.getChannel(), probes);
+        }
+        probes.put(key, probe);
+    }
+    
+    private static FilePath getBaseDirectory(AbstractBuild<?, ?> build, BaseDirectory baseDir) {
+        if (baseDir == null) {
+            return null;
+        }
+        FilePath base = baseDir.getBaseDirectory(build);
+        return (base != null && base.getChannel() != null) ? base : null;
+    }
+    
+    /**
+     * A file to test existence, or a directory to test files matching patterns.
+     */
+    private static class Probe implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final String path;
+        private final String includes;
+        private final String excludes;
+        
+        public Probe(String path, String includes, String excludes) {
+            this.path = path;
+            this.includes = includes;
+            this.excludes = excludes;
+        }
+        
+        /**
+         * @return the result, or null to let the condition evaluate and report the problem by itself.
+         */
+        public Boolean test() {
+            FilePath file = new FilePath(new File(path));
+            try {
+                if (includes == null) {
+                    return file.exists();
+                }
+                if (!file.isDirectory()) {
+                    return null;
+                }
+                return file.list(includes, excludes).length > 0;
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+    
+    private static class ProbeCallable extends MasterToSlaveCallable<Boolean[], IOException> {
+        private static final long serialVersionUID = 1L;
+        private final List<Probe> probes;
+        
+        public ProbeCallable(List<Probe> probes) {
+            this.probes = probes;
+        }
+        
+        @Override
+        public Boolean[] call() throws IOException {
+            Boolean[] results = new Boolean[probes.size()];
+            for (int i = 0; i < probes.size(); ++i) {
+                results[i] = probes.get(i).test();
+            }
+            return results;
+        }
+    }
+}
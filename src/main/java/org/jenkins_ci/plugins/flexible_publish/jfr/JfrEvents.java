@@ -0,0 +1,260 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.jfr;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.model.Run;
+
+/**
+ * Emits Java Flight Recorder events for publishers, conditions and matrix aggregations.
+ * 
+ * Event types are defined at runtime with {@code jdk.jfr.EventFactory}
+ * as this plugin is compiled for Java 8, which doesn't provide JFR API.
+ * When running on a JVM without JFR, or when the event type is disabled
+ * in the recording, {@link #begin(Kind, Run, String, String)} returns a no-op span
+ * without creating events.
+ * 
+ * All events have following fields:
+ * <dl>
+ *   <dt>job</dt><dd>the full name of the job</dd>
+ *   <dt>build</dt><dd>the build number</dd>
+ *   <dt>descriptor</dt><dd>the class of the publisher or the condition</dd>
+ *   <dt>phase</dt><dd>the phase of the matrix aggregation (startBuild, endRun or endBuild)</dd>
+ *   <dt>outcome</dt><dd>the result</dd>
+ * </dl>
+ */
+public final class JfrEvents {
+    private static final Logger LOGGER = Logger.getLogger(JfrEvents.class.getName());
+    
+    /**
+     * Types of events.
+     */
+    public static enum Kind {
+        STEP("org.jenkinsci.flexiblepublish.Step", "Flexible Publish Step"),
+        CONDITION("org.jenkinsci.flexiblepublish.Condition", "Flexible Publish Condition"),
+        AGGREGATION("org.jenkinsci.flexiblepublish.Aggregation", "Flexible Publish Matrix Aggregation"),
+        ;
+        
+        private final String eventName;
+        private final String label;
+        
+        private Kind(String eventName, String label) {
+            this.eventName = eventName;
+            this.label = label;
+        }
+        
+        public String getEventName() {
+            return eventName;
+        }
+    }
+    
+    private static final int FIELD_JOB = 0;
+    private static final int FIELD_BUILD = 1;
+    private static final int FIELD_DESCRIPTOR = 2;
+    private static final int FIELD_PHASE = 3;
+    private static final int FIELD_OUTCOME = 4;
+    
+    private static final boolean AVAILABLE = initialize();
+    
+    /**
+     * Holds the JFR API in constants, so that the JIT compiler can inline method handles.
+     * Fails to initialize when JFR is not available.
+     */
+    private static final class Jfr {
+        static final Object[] FACTORIES = new Object[Kind.values().length];
+        static final Object[] EVENT_TYPES = new Object[Kind.values().length];
+        static final MethodHandle IS_ENABLED;
+        static final MethodHandle NEW_EVENT;
+        static final MethodHandle BEGIN;
+        static final MethodHandle END;
+        static final MethodHandle SET;
+        static final MethodHandle SHOULD_COMMIT;
+        static final MethodHandle COMMIT;
+        
+        static {
+            try {
+                ClassLoader loader = ClassLoader.getSystemClassLoader();
+                Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory", true, loader);
+                Class<?> eventClass = Class.forName("jdk.jfr.Event", true, loader);
+                Class<?> eventTypeClass = Class.forName("jdk.jfr.EventType", true, loader);
+                Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement", true, loader);
+                Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor", true, loader);
+                Class<? extends Annotation> nameClass = Class.forName("jdk.jfr.Name", true, loader).asSubclass(Annotation.class);
+                Class<? extends Annotation> labelClass = Class.forName("jdk.jfr.Label", true, loader).asSubclass(Annotation.class);
+                Class<? extends Annotation> categoryClass = Class.forName("jdk.jfr.Category", true, loader).asSubclass(Annotation.class);
+                
+                Constructor<?> newAnnotation = annotationElementClass.getConstructor(Class.class, Object.class);
+                Constructor<?> newValue = valueDescriptorClass.getConstructor(Class.class, String.class);
+                
+                List<Object> fields = new ArrayList<Object>();
+                fields.add(newValue.newInstance(String.class, "job"));
+                fields.add(newValue.newInstance(int.class, "build"));
+                fields.add(newValue.newInstance(String.class, "descriptor"));
+                fields.add(newValue.newInstance(String.class, "phase"));
+                fields.add(newValue.newInstance(String.class, "outcome"));
+                
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                MethodHandle create = lookup.findStatic(
+                        eventFactoryClass,
+                        "create",
+                        MethodType.methodType(eventFactoryClass, List.class, List.class)
+                );
+                MethodHandle getEventType = lookup.findVirtual(eventFactoryClass, "getEventType", MethodType.methodType(eventTypeClass));
+                for (Kind kind: Kind.values()) {
+                    List<Object> annotations = Arrays.asList(
+                            newAnnotation.newInstance(nameClass, kind.eventName),
+                            newAnnotation.newInstance(labelClass, kind.label),
+                            newAnnotation.newInstance(categoryClass, new String[]{"Jenkins", "Flexible Publish"})
+                    );
+                    Object factory = create.invoke(annotations, fields);
+                    FACTORIES[kind.ordinal()] = factory;
+                    EVENT_TYPES[kind.ordinal()] = getEventType.invoke(factory);
+                }
+                
+                IS_ENABLED = lookup.findVirtual(eventTypeClass, "isEnabled", MethodType.methodType(boolean.class));
+                NEW_EVENT = lookup.findVirtual(eventFactoryClass, "newEvent", MethodType.methodType(eventClass));
+                BEGIN = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class));
+                END = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class));
+                SET = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class));
+                SHOULD_COMMIT = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class));
+                COMMIT = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class));
+            } catch (Throwable t) {
+                throw new ExceptionInInitializerError(t);
+            }
+        }
+        
+        private Jfr() {
+        }
+    }
+    
+    private static boolean initialize() {
+        try {
+            return Jfr.IS_ENABLED != null;
+        } catch (ExceptionInInitializerError e) {
+            if (e.getCause() instanceof ClassNotFoundException) {
+                LOGGER.log(Level.FINE, "Java Flight Recorder is not available", e.getCause());
+            } else {
+                LOGGER.log(Level.WARNING, "Failed to define Java Flight Recorder events", e.getCause());
+            }
+        } catch (LinkageError e) {
+            LOGGER.log(Level.WARNING, "Failed to define Java Flight Recorder events", e);
+        }
+        return false;
+    }
+    
+    private JfrEvents() {
+    }
+    
+    /**
+     * A running event. Call {@link #end(String)} to commit.
+     */
+    public static class Span {
+        private static final Span NOOP = new Span(null);
+        private final Object event;
+        
+        private Span(Object event) {
+            this.event = event;
+        }
+        
+        /**
+         * @param outcome
+         */
+        public void end(String outcome) {
+            if (event == null) {
+                return;
+            }
+            try {
+                Jfr.END.invoke(event);
+                if ((Boolean)Jfr.SHOULD_COMMIT.invoke(event)) {
+                    Jfr.SET.invoke(event, FIELD_OUTCOME, outcome);
+                    Jfr.COMMIT.invoke(event);
+                }
+            } catch (Throwable t) {
+                LOGGER.log(Level.FINE, "Failed to commit an event", t);
+            }
+        }
+    }
+    
+    /**
+     * @return whether Java Flight Recorder is available in this JVM.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+    
+    /**
+     * Check this before computing fields expensive to build.
+     * 
+     * @param kind
+     * @return whether events of the kind are recorded now.
+     */
+    public static boolean isEnabled(Kind kind) {
+        if (!AVAILABLE) {
+            return false;
+        }
+        try {
+            return (Boolean)Jfr.IS_ENABLED.invoke(Jfr.EVENT_TYPES[kind.ordinal()]);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Failed to check the event type", t);
+            return false;
+        }
+    }
+    
+    /**
+     * Starts an event.
+     * 
+     * @param kind
+     * @param run may be null.
+     * @param descriptor the class name of the publisher or the condition.
+     * @param phase may be null.
+     * @return the span to end. never null.
+     */
+    public static Span begin(Kind kind, Run<?, ?> run, String descriptor, String phase) {
+        if (!isEnabled(kind)) {
+            return Span.NOOP;
+        }
+        try {
+            Object event = Jfr.NEW_EVENT.invoke(Jfr.FACTORIES[kind.ordinal()]);
+            Jfr.SET.invoke(event, FIELD_JOB, (run != null) ? run.getParent().getFullName() : null);
+            Jfr.SET.invoke(event, FIELD_BUILD, (run != null) ? run.getNumber() : 0);
+            Jfr.SET.invoke(event, FIELD_DESCRIPTOR, descriptor);
+            Jfr.SET.invoke(event, FIELD_PHASE, phase);
+            Jfr.BEGIN.invoke(event);
+            return new Span(event);
+        } catch (Throwable t) {
+            LOGGER.log(Level.FINE, "Failed to begin an event", t);
+            return Span.NOOP;
+        }
+    }
+}
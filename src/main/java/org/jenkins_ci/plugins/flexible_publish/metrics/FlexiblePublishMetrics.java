@@ -0,0 +1,373 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishEventLog;
+import org.jenkins_ci.plugins.flexible_publish.TriggerEvaluationStatistics;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+
+/**
+ * Controller-wide counters and histograms of flexible publish.
+ * 
+ * Other plugins can read metrics with {@link #get()} and {@link #getMetrics()},
+ * and they are exposed in the Prometheus text format by {@link FlexiblePublishMetricsAction}.
+ * Metrics are reset when Jenkins restarts.
+ */
+@Extension
+public class FlexiblePublishMetrics {
+    public static final String GROUPS_EVALUATED = "flexible_publish_groups_evaluated_total";
+    public static final String GROUPS_SKIPPED = "flexible_publish_groups_skipped_total";
+    public static final String GROUP_CONDITION_ERRORS = "flexible_publish_group_condition_errors_total";
+    public static final String STEPS = "flexible_publish_steps_total";
+    public static final String STEP_FAILURES = "flexible_publish_step_failures_total";
+    public static final String STEP_DURATION = "flexible_publish_step_duration_seconds";
+    public static final String PERFORM_DURATION = "flexible_publish_perform_duration_seconds";
+    public static final String MATRIX_END_RUN_DURATION = "flexible_publish_matrix_end_run_duration_seconds";
+    public static final String TRIGGER_EVALUATIONS = "flexible_publish_trigger_evaluations_total";
+    public static final String TRIGGER_EVALUATION_FAILURES = "flexible_publish_trigger_evaluation_failures_total";
+    public static final String TRIGGER_EVALUATION_SECONDS = "flexible_publish_trigger_evaluation_seconds_total";
+    public static final String EVENT_LOG_DROPPED = "flexible_publish_event_log_dropped_total";
+    
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentSkipListMap<String, Metric>();
+    
+    public FlexiblePublishMetrics() {
+        // counted by TriggerEvaluationStatistics.
+        register(new ComputedCounter(TRIGGER_EVALUATIONS, "Evaluations of conditional triggers", formatLabels("triggered", "true")) {
+            @Override
+            public Number getValue() {
+                return TriggerEvaluationStatistics.get().getTotal().getTriggered();
+            }
+        });
+        register(new ComputedCounter(TRIGGER_EVALUATIONS, "Evaluations of conditional triggers", formatLabels("triggered", "false")) {
+            @Override
+            public Number getValue() {
+                TriggerEvaluationStatistics.Counters total = TriggerEvaluationStatistics.get().getTotal();
+                return total.getEvaluations() - total.getTriggered();
+            }
+        });
+        register(new ComputedCounter(TRIGGER_EVALUATION_FAILURES, "Conditional triggers failed to be evaluated", "") {
+            @Override
+            public Number getValue() {
+                return TriggerEvaluationStatistics.get().getTotal().getFailures();
+            }
+        });
+        register(new ComputedCounter(TRIGGER_EVALUATION_SECONDS, "Time to evaluate conditions of triggers", "") {
+            @Override
+            public Number getValue() {
+                return (double)TriggerEvaluationStatistics.get().getTotal().getTotalNanos() / TimeUnit.SECONDS.toNanos(1);
+            }
+        });
+        register(new ComputedCounter(EVENT_LOG_DROPPED, "Events not written to event logs as the queue was full", "") {
+            @Override
+            public Number getValue() {
+                return FlexiblePublishEventLog.getDropped();
+            }
+        });
+    }
+    
+    /**
+     * A metric with a name and labels.
+     */
+    public static abstract class Metric {
+        private final String name;
+        private final String help;
+        private final String labels;
+        
+        protected Metric(String name, String help, String labels) {
+            this.name = name;
+            this.help = help;
+            this.labels = labels;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getHelp() {
+            return help;
+        }
+        
+        /**
+         * @return labels in the Prometheus format without braces, e.g. {@code descriptor="hudson.tasks.Mailer"}. may be empty.
+         */
+        public String getLabels() {
+            return labels;
+        }
+        
+        protected abstract String getType();
+        
+        protected abstract void write(Writer w) throws IOException;
+        
+        protected String withLabels(String extra) {
+            if (labels.isEmpty()) {
+                return (extra != null) ? String.format("{%s}", extra) : "";
+            }
+            return (extra != null) ? String.format("{%s,%s}", labels, extra) : String.format("{%s}", labels);
+        }
+    }
+    
+    /**
+     * A monotonically increasing counter.
+     */
+    public static class Counter extends Metric {
+        private final LongAdder value = new LongAdder();
+        
+        protected Counter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+        
+        public void inc() {
+            value.increment();
+        }
+        
+        public long getValue() {
+            return value.sum();
+        }
+        
+        @Override
+        protected String getType() {
+            return "counter";
+        }
+        
+        @Override
+        protected void write(Writer w) throws IOException {
+            w.write(String.format("%s%s %d\n", getName(), withLabels(null), getValue()));
+        }
+    }
+    
+    /**
+     * A counter whose value is read from other statistics when exposed.
+     */
+    public static abstract class ComputedCounter extends Metric {
+        protected ComputedCounter(String name, String help, String labels) {
+            super(name, help, labels);
+        }
+        
+        public abstract Number getValue();
+        
+        @Override
+        protected String getType() {
+            return "counter";
+        }
+        
+        @Override
+        protected void write(Writer w) throws IOException {
+            w.write(String.format("%s%s %s\n", getName(), withLabels(null), getValue()));
+        }
+    }
+    
+    /**
+     * Distribution of durations in seconds.
+     */
+    public static class Histogram extends Metric {
+        private static final double[] BUCKETS = {
+            0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 300,
+        };
+        private final LongAdder[] counts = new LongAdder[BUCKETS.length];
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        
+        protected Histogram(String name, String help, String labels) {
+            super(name, help, labels);
+            for (int i = 0; i < counts.length; ++i) {
+                counts[i] = new LongAdder();
+            }
+        }
+        
+        public void observeNanos(long nanos) {
+            double seconds = (double)nanos / TimeUnit.SECONDS.toNanos(1);
+            for (int i = 0; i < BUCKETS.length; ++i) {
+                if (seconds <= BUCKETS[i]) {
+                    counts[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sum.add(seconds);
+        }
+        
+        public long getCount() {
+            return count.sum();
+        }
+        
+        /**
+         * @return the sum of observed values in seconds.
+         */
+        public double getSum() {
+            return sum.sum();
+        }
+        
+        @Override
+        protected String getType() {
+            return "histogram";
+        }
+        
+        @Override
+        protected void write(Writer w) throws IOException {
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS.length; ++i) {
+                cumulative += counts[i].sum();
+                w.write(String.format("%s_bucket%s %d\n", getName(), withLabels(String.format("le=\"%s\"", BUCKETS[i])), cumulative));
+            }
+            long total = getCount();
+            w.write(String.format("%s_bucket%s %d\n", getName(), withLabels("le=\"+Inf\""), total));
+            w.write(String.format("%s_sum%s %s\n", getName(), withLabels(null), getSum()));
+            w.write(String.format("%s_count%s %d\n", getName(), withLabels(null), total));
+        }
+    }
+    
+    /**
+     * @return the instance.
+     */
+    public static FlexiblePublishMetrics get() {
+        return ExtensionList.lookupSingleton(FlexiblePublishMetrics.class);
+    }
+    
+    /**
+     * @param name
+     * @param help
+     * @param labels pairs of label names and values.
+     * @return the counter. created if not exists.
+     */
+    public Counter counter(String name, String help, String... labels) {
+        String l = formatLabels(labels);
+        String key = name + "{" + l + "}";
+        Metric metric = metrics.get(key);
+        if (metric == null) {
+            Metric created = new Counter(name, help, l);
+            metric = metrics.putIfAbsent(key, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return (Counter)metric;
+    }
+    
+    /**
+     * @param name
+     * @param help
+     * @param labels pairs of label names and values.
+     * @return the histogram. created if not exists.
+     */
+    public Histogram histogram(String name, String help, String... labels) {
+        String l = formatLabels(labels);
+        String key = name + "{" + l + "}";
+        Metric metric = metrics.get(key);
+        if (metric == null) {
+            Metric created = new Histogram(name, help, l);
+            metric = metrics.putIfAbsent(key, created);
+            if (metric == null) {
+                metric = created;
+            }
+        }
+        return (Histogram)metric;
+    }
+    
+    private void register(Metric metric) {
+        metrics.put(metric.getName() + "{" + metric.getLabels() + "}", metric);
+    }
+    
+    /**
+     * @return all metrics sorted by names and labels.
+     */
+    public Map<String, Metric> getMetrics() {
+        return Collections.unmodifiableMap(metrics);
+    }
+    
+    /**
+     * Writes all metrics in the Prometheus text format.
+     * 
+     * @param w
+     * @throws IOException
+     */
+    public void writePrometheus(Writer w) throws IOException {
+        String family = null;
+        for (Metric metric: metrics.values()) {
+            if (!metric.getName().equals(family)) {
+                family = metric.getName();
+                w.write(String.format("# HELP %s %s\n", family, metric.getHelp()));
+                w.write(String.format("# TYPE %s %s\n", family, metric.getType()));
+            }
+            metric.write(w);
+        }
+    }
+    
+    private static String formatLabels(String... labels) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+    
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+    
+    // shortcuts to record metrics.
+    
+    public void groupEvaluated(boolean run, boolean error) {
+        counter(GROUPS_EVALUATED, "Conditional actions whose conditions are evaluated").inc();
+        if (!run) {
+            counter(GROUPS_SKIPPED, "Conditional actions skipped as the condition is not satisfied").inc();
+        }
+        if (error) {
+            counter(GROUP_CONDITION_ERRORS, "Conditional actions whose conditions failed to be evaluated").inc();
+        }
+    }
+    
+    public void stepPerformed(String descriptor, long nanos, boolean failed) {
+        counter(STEPS, "Publishers run", "descriptor", descriptor).inc();
+        if (failed) {
+            counter(STEP_FAILURES, "Publishers failed", "descriptor", descriptor).inc();
+        }
+        histogram(STEP_DURATION, "Time to run publishers", "descriptor", descriptor).observeNanos(nanos);
+    }
+    
+    public void performed(long nanos) {
+        histogram(PERFORM_DURATION, "Time to run all conditional actions of a flexible publisher").observeNanos(nanos);
+    }
+    
+    public void matrixEndRun(long nanos) {
+        histogram(MATRIX_END_RUN_DURATION, "Time to aggregate a matrix run").observeNanos(nanos);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+
+/**
+ * Exposes {@link FlexiblePublishMetrics} in the Prometheus text format
+ * at {@code /flexible-publish-metrics/prometheus}.
+ * 
+ * Requires the Overall/Read permission.
+ */
+@Extension
+public class FlexiblePublishMetricsAction implements RootAction {
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+    
+    @Override
+    public String getUrlName() {
+        return "flexible-publish-metrics";
+    }
+    
+    public void doPrometheus(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        rsp.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        Writer w = rsp.getCompressedWriter(req);
+        try {
+            FlexiblePublishMetrics.get().writePrometheus(w);
+        } finally {
+            w.close();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import java.util.List;
 import jenkins.model.Jenkins;
 
 import org.jenkins_ci.plugins.flexible_publish.ConditionalPublisher;
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
 import org.jenkins_ci.plugins.run_condition.RunCondition;
 import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
 
@@ -60,11 +61,22 @@ public abstract class ConditionalExecutionStrategy
         private final BuildStepRunner runner;
         private final RunCondition condition;
         private final List<BuildStep> publisherList;
+        private final CompiledCondition compiledCondition;
         
         public PublisherContext(BuildStepRunner runner, RunCondition condition, List<BuildStep> publisherList) {
+            this(runner, CompiledCondition.compile(condition), publisherList);
+        }
+        
+        /**
+         * @param runner
+         * @param compiledCondition
+         * @param publisherList
+         */
+        public PublisherContext(BuildStepRunner runner, CompiledCondition compiledCondition, List<BuildStep> publisherList) {
             this.runner = runner;
-            this.condition = condition;
+            this.condition = compiledCondition.getCondition();
             this.publisherList = publisherList;
+            this.compiledCondition = compiledCondition;
         }
         
         public BuildStepRunner getRunner() {
@@ -78,6 +90,13 @@ public abstract class ConditionalExecutionStrategy
         public List<BuildStep> getPublisherList() {
             return publisherList;
         }
+        
+        /**
+         * @return the condition compiled for evaluation.
+         */
+        public CompiledCondition getCompiledCondition() {
+            return compiledCondition;
+        }
     }
     
     /**
@@ -91,16 +110,24 @@ public abstract class ConditionalExecutionStrategy
         private final BuildStepRunner runner;
         private final RunCondition condition;
         private final List<MatrixAggregator> aggregatorList;
+        private final CompiledCondition compiledCondition;
         
         public AggregatorContext(MatrixBuild build, Launcher launcher, BuildListener listener, 
                 BuildStepRunner runner, RunCondition condition, List<MatrixAggregator> aggregatorList
+        ) {
+            this(build, launcher, listener, runner, CompiledCondition.compile(condition), aggregatorList);
+        }
+        
+        public AggregatorContext(MatrixBuild build, Launcher launcher, BuildListener listener, 
+                BuildStepRunner runner, CompiledCondition compiledCondition, List<MatrixAggregator> aggregatorList
         ) {
             this.build = build;
             this.launcher = launcher;
             this.listener = listener;
             this.runner = runner;
-            this.condition = condition;
+            this.condition = compiledCondition.getCondition();
             this.aggregatorList = aggregatorList;
+            this.compiledCondition = compiledCondition;
         }
         
         public MatrixBuild getBuild() {
@@ -126,6 +153,13 @@ public abstract class ConditionalExecutionStrategy
         public List<MatrixAggregator> getAggregatorList() {
             return aggregatorList;
         }
+        
+        /**
+         * @return the condition compiled for evaluation.
+         */
+        public CompiledCondition getCompiledCondition() {
+            return compiledCondition;
+        }
     }
     
     /**
@@ -36,7 +36,10 @@ import hudson.model.Result;
 import java.io.IOException;
 
 import org.jenkins_ci.plugins.flexible_publish.builder.FailAtEndBuilder;
-import org.jenkins_ci.plugins.flexible_publish.builder.MarkPerformedBuilder;
+import org.jenkins_ci.plugins.flexible_publish.ConditionOutcomeAction;
+import org.jenkins_ci.plugins.flexible_publish.FlexiblePublishEventLog;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
+import org.jenkins_ci.plugins.flexible_publish.metrics.FlexiblePublishMetrics;
 import org.kohsuke.stapler.DataBoundConstructor;
 
 /**
@@ -83,11 +86,18 @@ public class FailAtEndExecutionStrategy extends ConditionalExecutionStrategy {
     @Override
     public boolean perform(PublisherContext context, AbstractBuild<?, ?> build,
             Launcher launcher, BuildListener listener) throws InterruptedException, IOException {
-        return context.getRunner().perform(
-                context.getCondition(),
-                new FailAtEndBuilder(context.getPublisherList()),
+        ConditionEvaluator.Evaluation evaluation = ConditionOutcomeAction.evaluateAndRecord(
+                context.getCompiledCondition(),
+                context.getRunner(),
                 build, launcher, listener
         );
+        FlexiblePublishMetrics.get().groupEvaluated(evaluation.isRun(), evaluation.getException() != null);
+        FlexiblePublishEventLog.conditionDecided(build, context.getCondition(), context.getPublisherList(), evaluation);
+        if (!evaluation.isRun()) {
+            return evaluation.isSuccess();
+        }
+        return new FailAtEndBuilder(context.getPublisherList()).perform(build, launcher, listener)
+                && evaluation.isSuccess();
     }
     
     @Override
@@ -104,25 +114,30 @@ public class FailAtEndExecutionStrategy extends ConditionalExecutionStrategy {
     public boolean matrixAggregationEndRun(
             AggregatorContext aggregatorContext, MatrixRun run) throws InterruptedException, IOException
     {
-        MarkPerformedBuilder mpb = new MarkPerformedBuilder();
-        boolean isSuccess = aggregatorContext.getRunner().perform(
-                aggregatorContext.getCondition(),
-                mpb,
-                run, // watch out! not parent build.
-                aggregatorContext.getLauncher(),
-                aggregatorContext.getListener()
-        );
+        long start = System.nanoTime();
+        try {
+            // the outcome is usually recorded when the run performed publishers.
+            ConditionEvaluator.Evaluation evaluation = ConditionOutcomeAction.lookupOrEvaluate(
+                    aggregatorContext.getCompiledCondition(),
+                    aggregatorContext.getRunner(),
+                    run, // watch out! not parent build.
+                    aggregatorContext.getLauncher(),
+                    aggregatorContext.getListener()
+            );
         
-        if(!isSuccess || !mpb.isPerformed()) {
-            return isSuccess;
-        }
+            if(!evaluation.isSuccess() || !evaluation.isRun()) {
+                return evaluation.isSuccess();
+            }
         
-        for (MatrixAggregator aggregator: aggregatorContext.getAggregatorList()) {
-            if (!aggregator.endRun(run)) {
-                return false;
+            for (MatrixAggregator aggregator: aggregatorContext.getAggregatorList()) {
+                if (!aggregator.endRun(run)) {
+                    return false;
+                }
             }
+            return true;
+        } finally {
+            FlexiblePublishMetrics.get().matrixEndRun(System.nanoTime() - start);
         }
-        return true;
     }
     
     @Override
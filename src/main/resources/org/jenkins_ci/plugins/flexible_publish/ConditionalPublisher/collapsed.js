@@ -0,0 +1,41 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+/*
+ * Renders the body of a collapsed condition group on demand.
+ * The summary holds collapsedGroupIndex and collapsedGroupDigest while the group is collapsed,
+ * which tell the server to keep the saved group as it is.
+ */
+Behaviour.specify("BUTTON.flexible-publish-expand", "flexible-publish-expand", 0, function(button) {
+    button.onclick = function() {
+        var chunk = findAncestorClass(button, "repeated-chunk");
+        var body = chunk.querySelector(".flexible-publish-collapsed-body");
+        var summary = findAncestorClass(button, "flexible-publish-collapsed-summary");
+        button.disabled = true;
+        renderOnDemand(body, function() {
+            summary.parentNode.removeChild(summary);
+        });
+        return false;
+    };
+});
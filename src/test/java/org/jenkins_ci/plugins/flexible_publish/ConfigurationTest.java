@@ -25,11 +25,15 @@
 package org.jenkins_ci.plugins.flexible_publish;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+
 import hudson.Launcher;
 import hudson.matrix.AxisList;
 import hudson.matrix.MatrixProject;
@@ -40,6 +44,7 @@ import hudson.model.Result;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.FreeStyleProject;
+import hudson.model.Items;
 import hudson.model.Saveable;
 import hudson.tasks.BuildStep;
 import hudson.tasks.ArtifactArchiver;
@@ -67,6 +72,7 @@ import org.jvnet.hudson.test.TestExtension;
 import org.jvnet.hudson.test.recipes.LocalData;
 import org.kohsuke.stapler.DataBoundConstructor;
 
+import com.gargoylesoftware.htmlunit.html.HtmlButton;
 import com.gargoylesoftware.htmlunit.html.HtmlCheckBoxInput;
 import com.gargoylesoftware.htmlunit.html.HtmlForm;
 import com.gargoylesoftware.htmlunit.html.HtmlInput;
@@ -591,4 +597,261 @@ public class ConfigurationTest {
         conditionalPublisher2 = p.getPublishersList().get(FlexiblePublisher.class).getPublishers().get(1);
         assertEquals(FailAtEndExecutionStrategy.class, conditionalPublisher2.getExecutionStrategy().getClass());
     }
+    
+    @Test
+    public void testCompactXmlFormat() throws Exception {
+        FlexiblePublisher flexiblePublisher = new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("**/*.jar", "", false)
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null,
+                        new FailAtEndExecutionStrategy()
+                ),
+                new ConditionalPublisher(
+                        new NeverRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("**/*.zip", "", false)
+                        ),
+                        new BuildStepRunner.DontRun(),
+                        true,
+                        new AlwaysRun(),
+                        new BuildStepRunner.Run(),
+                        new FailFastExecutionStrategy()
+                )
+        ));
+        flexiblePublisher.setPreEvaluateConditions(true);
+        
+        // the legacy format is written by default.
+        String xml = Items.XSTREAM2.toXML(flexiblePublisher);
+        assertFalse(xml, xml.contains("format=\"2\""));
+        
+        CompactXmlFormat.ENABLED = true;
+        try {
+            xml = Items.XSTREAM2.toXML(flexiblePublisher);
+        } finally {
+            CompactXmlFormat.ENABLED = false;
+        }
+        assertTrue(xml, xml.contains("format=\"2\""));
+        assertTrue(xml, xml.contains("<conditional "));
+        assertTrue(xml, xml.contains("<runner>dontRun</runner>"));
+        assertTrue(xml, xml.contains("<executionStrategy>failFast</executionStrategy>"));
+        // defaults are omitted.
+        assertFalse(xml, xml.contains("FailAtEndExecutionStrategy"));
+        assertFalse(xml, xml.contains("bufferConsoleOutput"));
+        
+        FlexiblePublisher restored = (FlexiblePublisher)Items.XSTREAM2.fromXML(xml);
+        assertTrue(restored.isPreEvaluateConditions());
+        assertEquals(2, restored.getPublishers().size());
+        ConditionalPublisher conditionalPublisher1 = restored.getPublishers().get(0);
+        assertEquals(AlwaysRun.class, conditionalPublisher1.getCondition().getClass());
+        assertEquals(BuildStepRunner.Fail.class, conditionalPublisher1.getRunner().getClass());
+        assertEquals(FailAtEndExecutionStrategy.class, conditionalPublisher1.getExecutionStrategy().getClass());
+        assertEquals(1, conditionalPublisher1.getPublisherList().size());
+        assertNotNull(conditionalPublisher1.getCompiledCondition());
+        ConditionalPublisher conditionalPublisher2 = restored.getPublishers().get(1);
+        assertEquals(BuildStepRunner.DontRun.class, conditionalPublisher2.getRunner().getClass());
+        assertEquals(AlwaysRun.class, conditionalPublisher2.getAggregationCondition().getClass());
+        assertEquals(BuildStepRunner.Run.class, conditionalPublisher2.getAggregationRunner().getClass());
+        assertEquals(FailFastExecutionStrategy.class, conditionalPublisher2.getExecutionStrategy().getClass());
+        assertEquals("**/*.zip", ((ArtifactArchiver)conditionalPublisher2.getPublisherList().get(0)).getArtifacts());
+        
+        // publishers of uninstalled plugins are skipped.
+        ConditionalPublisher missing = (ConditionalPublisher)Items.XSTREAM2.fromXML(
+                "<org.jenkins__ci.plugins.flexible__publish.ConditionalPublisher format=\"2\">"
+                + "<condition class=\"org.jenkins_ci.plugins.run_condition.core.AlwaysRun\"/>"
+                + "<publisherList>"
+                + "<no.such.Publisher plugin=\"no-such-plugin@1.0\"/>"
+                + "<hudson.tasks.ArtifactArchiver><artifacts>**/*.war</artifacts></hudson.tasks.ArtifactArchiver>"
+                + "</publisherList>"
+                + "</org.jenkins__ci.plugins.flexible__publish.ConditionalPublisher>"
+        );
+        assertEquals(1, missing.getPublisherList().size());
+        assertEquals("**/*.war", ((ArtifactArchiver)missing.getPublisherList().get(0)).getArtifacts());
+        
+        // the legacy format without the execution strategy is read as fail fast.
+        ConditionalPublisher legacy = (ConditionalPublisher)Items.XSTREAM2.fromXML(
+                "<org.jenkins__ci.plugins.flexible__publish.ConditionalPublisher>"
+                + "<condition class=\"org.jenkins_ci.plugins.run_condition.core.AlwaysRun\"/>"
+                + "<publisherList/>"
+                + "</org.jenkins__ci.plugins.flexible__publish.ConditionalPublisher>"
+        );
+        assertEquals(FailFastExecutionStrategy.class, legacy.getExecutionStrategy().getClass());
+        assertEquals(BuildStepRunner.Fail.class, legacy.getRunner().getClass());
+    }
+    
+    @Test
+    public void testLegacyConfigMigration() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getPublishersList().add(new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("**/*.jar", "", false)
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null,
+                        new FailFastExecutionStrategy()
+                )
+        )));
+        p.save();
+        assertEquals(0, LegacyConfigMigration.countLegacyElements(p.getConfigFile().asString()));
+        
+        // configurations saved by 0.14.1 and earlier have no execution strategy.
+        String xml = p.getConfigFile().asString().replaceAll("<executionStrategy [^>]*/>", "");
+        p.updateByXml((Source)new StreamSource(new StringReader(xml)));
+        assertEquals(1, LegacyConfigMigration.countLegacyElements(p.getConfigFile().asString()));
+        
+        LegacyConfigMigration.Report report = LegacyConfigMigration.migrate(true);
+        while (report.isRunning()) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, report.getRemaining());
+        assertEquals(LegacyConfigMigration.Status.LEGACY, report.getEntries().get(0).getStatus());
+        assertEquals(1, LegacyConfigMigration.countLegacyElements(p.getConfigFile().asString()));
+        
+        // migrated in the legacy format written by default.
+        report = LegacyConfigMigration.migrate(false);
+        while (report.isRunning()) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, report.getRemaining());
+        assertEquals(1, report.getEntries().size());
+        assertEquals(LegacyConfigMigration.Status.MIGRATED, report.getEntries().get(0).getStatus());
+        assertEquals(0, LegacyConfigMigration.countLegacyElements(p.getConfigFile().asString()));
+        assertFalse(p.getConfigFile().asString().contains("format=\"2\""));
+        
+        // elements in the compact format omit defaults and are not legacy.
+        CompactXmlFormat.ENABLED = true;
+        try {
+            p.save();
+        } finally {
+            CompactXmlFormat.ENABLED = false;
+        }
+        assertFalse(p.getConfigFile().asString().contains("<executionStrategy"));
+        assertEquals(0, LegacyConfigMigration.countLegacyElements(p.getConfigFile().asString()));
+    }
+    
+    @Test
+    public void testAllowedPublishersCache() throws Exception {
+        DefaultPublisherDescriptorLister lister = new DefaultPublisherDescriptorLister();
+        FreeStyleProject p1 = createFreeStyleProject();
+        FreeStyleProject p2 = createFreeStyleProject();
+        
+        List<? extends Descriptor<? extends BuildStep>> publishers = lister.getAllowedPublishers(p1);
+        assertTrue(publishers.contains(j.jenkins.getDescriptorByType(ArtifactArchiver.DescriptorImpl.class)));
+        assertFalse(publishers.contains(j.jenkins.getDescriptorByType(FlexiblePublisher.FlexiblePublisherDescriptor.class)));
+        assertSame(publishers, lister.getAllowedPublishers(p2));
+        try {
+            publishers.clear();
+            fail("should be immutable");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        
+        DefaultPublisherDescriptorLister.invalidateCache();
+        assertNotSame(publishers, lister.getAllowedPublishers(p1));
+        assertEquals(publishers, lister.getAllowedPublishers(p1));
+    }
+    
+    @Test
+    public void testDescriptorCache() throws Exception {
+        assertSame(
+                j.jenkins.getDescriptorOrDie(ArtifactArchiver.class),
+                DescriptorCache.getDescriptorOrDie(ArtifactArchiver.class.getName())
+        );
+        assertSame(
+                DescriptorCache.getDescriptorOrDie(ArtifactArchiver.class.getName()),
+                DescriptorCache.getDescriptorOrDie(ArtifactArchiver.class.getName())
+        );
+        assertSame(
+                j.jenkins.getDescriptorOrDie(ConditionalPublisher.class),
+                DescriptorCache.getDescriptorOrDie(ConditionalPublisher.class)
+        );
+        try {
+            DescriptorCache.getDescriptorOrDie("no.such.Publisher");
+            fail("should fail for missing classes");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+    }
+    
+    @Test
+    public void testCollapsedGroups() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getPublishersList().add(new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        new BuildTrigger("anotherProject", Result.SUCCESS),
+                        new BuildStepRunner.Run(),
+                        false,
+                        null,
+                        null
+                ),
+                new ConditionalPublisher(
+                        new NeverRun(),
+                        new ArtifactArchiver("**/*.jar", "some/bad.jar", true),
+                        new BuildStepRunner.DontRun(),
+                        false,
+                        null,
+                        null
+                )
+        )));
+        p.save();
+        
+        int threshold = FlexiblePublisher.FlexiblePublisherDescriptor.COLLAPSE_GROUPS_THRESHOLD;
+        FlexiblePublisher.FlexiblePublisherDescriptor.COLLAPSE_GROUPS_THRESHOLD = 2;
+        try {
+            // only summaries are rendered.
+            HtmlPage page = wc.getPage(p, "configure");
+            HtmlForm configForm = page.getFormByName("config");
+            assertEquals(2, configForm.getInputsByName("collapsedGroupIndex").size());
+            assertEquals(0, configForm.getInputsByName("_.artifacts").size());
+            assertTrue(page.asText().contains(j.jenkins.getDescriptorByType(ArtifactArchiver.DescriptorImpl.class).getDisplayName()));
+            
+            // groups not expanded are kept as saved.
+            submit(configForm);
+            FlexiblePublisher flexiblePublisher = p.getPublishersList().get(FlexiblePublisher.class);
+            assertEquals(2, flexiblePublisher.getPublishers().size());
+            assertEquals(AlwaysRun.class, flexiblePublisher.getPublishers().get(0).getCondition().getClass());
+            assertEquals(NeverRun.class, flexiblePublisher.getPublishers().get(1).getCondition().getClass());
+            assertEquals("**/*.jar", ((ArtifactArchiver)flexiblePublisher.getPublishers().get(1).getPublisher()).getArtifacts());
+            
+            // the body of an expanded group is rendered on demand.
+            page = wc.getPage(p, "configure");
+            HtmlButton expand = page.getFirstByXPath("//button[contains(@class, 'flexible-publish-expand')]");
+            expand.click();
+            configForm = page.getFormByName("config");
+            assertEquals(1, configForm.getInputsByName("collapsedGroupIndex").size());
+            assertEquals(1, page.getByXPath("//*[contains(@class, 'flexible-publish-collapsed-body')]").size());
+            
+            submit(configForm);
+            flexiblePublisher = p.getPublishersList().get(FlexiblePublisher.class);
+            assertEquals(2, flexiblePublisher.getPublishers().size());
+            assertEquals(AlwaysRun.class, flexiblePublisher.getPublishers().get(0).getCondition().getClass());
+            assertEquals("anotherProject", ((BuildTrigger)flexiblePublisher.getPublishers().get(0).getPublisher()).getChildProjectsValue());
+            assertEquals(NeverRun.class, flexiblePublisher.getPublishers().get(1).getCondition().getClass());
+            
+            // groups reordered after the page was rendered are not taken by their indices.
+            page = wc.getPage(p, "configure");
+            configForm = page.getFormByName("config");
+            p.getPublishersList().replace(new FlexiblePublisher(Arrays.asList(
+                    flexiblePublisher.getPublishers().get(1),
+                    flexiblePublisher.getPublishers().get(0)
+            )));
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            submit(configForm);
+            flexiblePublisher = p.getPublishersList().get(FlexiblePublisher.class);
+            assertEquals(NeverRun.class, flexiblePublisher.getPublishers().get(0).getCondition().getClass());
+            assertEquals(AlwaysRun.class, flexiblePublisher.getPublishers().get(1).getCondition().getClass());
+        } finally {
+            FlexiblePublisher.FlexiblePublisherDescriptor.COLLAPSE_GROUPS_THRESHOLD = threshold;
+        }
+    }
 }
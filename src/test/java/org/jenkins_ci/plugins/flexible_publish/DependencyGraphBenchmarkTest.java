@@ -0,0 +1,265 @@
+/*
+ * The MIT License
+ * 
+ * Copyright (c) 2026 the flexible-publish plugin authors
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package org.jenkins_ci.plugins.flexible_publish;
+
+import java.io.ByteArrayInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import hudson.model.AbstractProject;
+import hudson.model.Action;
+import hudson.model.BuildListener;
+import hudson.model.DependencyGraph;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.model.StreamBuildListener;
+import hudson.model.TopLevelItem;
+import hudson.tasks.BuildStep;
+import hudson.tasks.BuildTrigger;
+import hudson.util.NullStream;
+
+import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+import org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+/**
+ * Measures {@link ConditionalDependencyGraphWrapper} and {@link ConditionalDependencyWrapper}
+ * with thousands of projects.
+ * 
+ * Skipped unless sizes are specified:
+ * <pre>
+ * mvn test -Pbenchmark
+ * mvn test -Dtest=DependencyGraphBenchmarkTest -DflexiblePublish.benchmark.sizes=1000,5000,10000
+ * </pre>
+ * 
+ * Each project has {@link #GROUPS} conditions triggering {@link #FAN_OUT} projects each,
+ * and one more condition duplicating the first one.
+ * Conditions refer undefined variables, and never trigger projects.
+ */
+public class DependencyGraphBenchmarkTest {
+    private static final String SIZES_PROPERTY = "flexiblePublish.benchmark.sizes";
+    private static final int GROUPS = 4;
+    private static final int FAN_OUT = 3;
+    private static final int WARMUPS = 2;
+    private static final int ITERATIONS = 5;
+    
+    @Rule
+    public JenkinsRule j = new JenkinsRule();
+    
+    private String template;
+    
+    @Test
+    public void benchmark() throws Exception {
+        String sizes = System.getProperty(SIZES_PROPERTY);
+        Assume.assumeTrue(
+                String.format("Specify -D%s=1000,5000,10000 to run", SIZES_PROPERTY),
+                sizes != null && !sizes.trim().isEmpty()
+        );
+        
+        System.out.println(String.format(
+                "%8s %8s | %12s %14s | %12s %14s | %12s %14s",
+                "projects", "edges",
+                "graph(ms)", "graph(bytes)",
+                "lookup(ms)", "lookup(bytes)",
+                "trigger(ms)", "trigger(bytes)"
+        ));
+        int created = 0;
+        for (String size: sizes.split(",")) {
+            int n = Integer.parseInt(size.trim());
+            // projects are reused for larger sizes.
+            for (; created < n; ++created) {
+                createProject(created);
+            }
+            runScenario(n);
+        }
+    }
+    
+    private static String getProjectName(int index) {
+        return String.format("job-%05d", index);
+    }
+    
+    private static String getChildProjects(int index, int group) {
+        List<String> names = new ArrayList<String>(FAN_OUT);
+        for (int i = 1; i <= FAN_OUT; ++i) {
+            names.add(getProjectName(index + group * FAN_OUT + i));
+        }
+        return String.join(",", names);
+    }
+    
+    /**
+     * Creates a project from the configuration of a prototype.
+     * Much faster than configuring each project, as that saves the project for each change.
+     */
+    private void createProject(int index) throws Exception {
+        if (template == null) {
+            FreeStyleProject prototype = j.createFreeStyleProject("prototype");
+            List<ConditionalPublisher> publishers = new ArrayList<ConditionalPublisher>();
+            for (int group = 0; group < GROUPS; ++group) {
+                publishers.add(createConditionalPublisher(group));
+            }
+            // duplicates the first group, which should be merged in the dependency graph.
+            publishers.add(createConditionalPublisher(0));
+            prototype.getPublishersList().add(new FlexiblePublisher(publishers));
+            template = prototype.getConfigFile().asString();
+            prototype.delete();
+        }
+        String xml = template;
+        for (int group = 0; group < GROUPS; ++group) {
+            xml = xml.replace(getChildrenToken(group), getChildProjects(index, group));
+        }
+        j.jenkins.createProjectFromXML(getProjectName(index), new ByteArrayInputStream(xml.getBytes("UTF-8")));
+    }
+    
+    private static String getChildrenToken(int group) {
+        return String.format("@CHILDREN_%d@", group);
+    }
+    
+    private static ConditionalPublisher createConditionalPublisher(int group) {
+        return new ConditionalPublisher(
+                new StringsMatchCondition(String.format("${TRIGGER_%d}", group), "true", false),
+                Arrays.<BuildStep>asList(new BuildTrigger(getChildrenToken(group), Result.SUCCESS)),
+                new BuildStepRunner.Fail(),
+                false,
+                null,
+                null,
+                null
+        );
+    }
+    
+    @SuppressWarnings("rawtypes")
+    private void runScenario(int n) throws Exception {
+        List<AbstractProject> projects = new ArrayList<AbstractProject>(n);
+        for (int i = 0; i < n; ++i) {
+            TopLevelItem item = j.jenkins.getItem(getProjectName(i));
+            projects.add((AbstractProject)item);
+        }
+        
+        // DependencyGraph construction
+        Measurement graphMeasurement = new Measurement();
+        for (int i = 0; i < WARMUPS + ITERATIONS; ++i) {
+            graphMeasurement.start();
+            j.jenkins.rebuildDependencyGraph();
+            graphMeasurement.stop(i >= WARMUPS);
+        }
+        DependencyGraph graph = j.jenkins.getDependencyGraph();
+        
+        // getDownstreamDependencies
+        Measurement lookupMeasurement = new Measurement();
+        int edges = 0;
+        for (int i = 0; i < WARMUPS + ITERATIONS; ++i) {
+            edges = 0;
+            lookupMeasurement.start();
+            for (AbstractProject p: projects) {
+                edges += graph.getDownstreamDependencies(p).size();
+            }
+            lookupMeasurement.stop(i >= WARMUPS);
+        }
+        
+        // trigger evaluation, against a build of the first project.
+        // each iteration uses a new build, as evaluations are recorded to the build.
+        BuildListener listener = new StreamBuildListener(new NullStream());
+        Measurement triggerMeasurement = new Measurement();
+        for (int i = 0; i < WARMUPS + ITERATIONS; ++i) {
+            FreeStyleBuild upstream = ((FreeStyleProject)projects.get(0)).scheduleBuild2(0).get(60, TimeUnit.SECONDS);
+            j.assertBuildStatusSuccess(upstream);
+            j.waitUntilNoActivity();
+            triggerMeasurement.start();
+            for (AbstractProject p: projects) {
+                for (DependencyGraph.Dependency dep: graph.getDownstreamDependencies(p)) {
+                    dep.shouldTriggerBuild(upstream, listener, new ArrayList<Action>());
+                }
+            }
+            triggerMeasurement.stop(i >= WARMUPS);
+            upstream.delete();
+        }
+        
+        System.out.println(String.format(
+                "%8d %8d | %12.1f %14d | %12.1f %14d | %12.1f %14d",
+                n, edges,
+                graphMeasurement.getMillis(), graphMeasurement.getBytes(),
+                lookupMeasurement.getMillis(), lookupMeasurement.getBytes(),
+                triggerMeasurement.getMillis(), triggerMeasurement.getBytes()
+        ));
+    }
+    
+    /**
+     * Accumulates wall time and allocated bytes of the current thread.
+     */
+    private static class Measurement {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private long startNanos;
+        private long startBytes;
+        private long totalNanos;
+        private long totalBytes;
+        private int count;
+        
+        public void start() {
+            startBytes = getAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+        
+        public void stop(boolean measured) {
+            long nanos = System.nanoTime() - startNanos;
+            long bytes = getAllocatedBytes() - startBytes;
+            if (!measured) {
+                return;
+            }
+            totalNanos += nanos;
+            totalBytes += bytes;
+            ++count;
+        }
+        
+        /**
+         * @return mean wall time in milliseconds.
+         */
+        public double getMillis() {
+            return (count > 0) ? (double)totalNanos / count / TimeUnit.MILLISECONDS.toNanos(1) : 0;
+        }
+        
+        /**
+         * @return mean allocated bytes. -1 if not supported by the JVM.
+         */
+        public long getBytes() {
+            if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+                return -1;
+            }
+            return (count > 0) ? totalBytes / count : 0;
+        }
+        
+        private static long getAllocatedBytes() {
+            if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+                return 0;
+            }
+            return ((com.sun.management.ThreadMXBean)THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+    }
+}
@@ -24,9 +24,13 @@
 
 package org.jenkins_ci.plugins.flexible_publish;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import hudson.AbortException;
 import hudson.Extension;
@@ -39,7 +43,11 @@ import hudson.model.Cause;
 import hudson.model.FreeStyleProject;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.matrix.AxisList;
+import hudson.matrix.MatrixProject;
+import hudson.matrix.TextAxis;
 import hudson.model.Result;
+import hudson.model.StreamBuildListener;
 import hudson.model.StringParameterDefinition;
 import hudson.model.StringParameterValue;
 import hudson.tasks.BuildStep;
@@ -48,13 +56,35 @@ import hudson.tasks.BuildStepMonitor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
 import hudson.tasks.ArtifactArchiver;
+import hudson.tasks.Shell;
+import hudson.util.ListBoxModel;
+import hudson.util.NullStream;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+
+import org.jenkins_ci.plugins.flexible_publish.condition.CompiledCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionStatistics;
+import org.jenkins_ci.plugins.flexible_publish.condition.EnvironmentSnapshot;
+import org.jenkins_ci.plugins.flexible_publish.condition.EvaluationScope;
+import org.jenkins_ci.plugins.flexible_publish.condition.PreEvaluatedCondition;
+import org.jenkins_ci.plugins.flexible_publish.condition.StringConditions;
+import org.jenkins_ci.plugins.flexible_publish.condition.WorkspaceProbe;
+import org.jenkins_ci.plugins.flexible_publish.metrics.FlexiblePublishMetrics;
 import org.jenkins_ci.plugins.flexible_publish.strategy.FailAtEndExecutionStrategy;
 import org.jenkins_ci.plugins.flexible_publish.strategy.FailFastExecutionStrategy;
 import org.jenkins_ci.plugins.flexible_publish.testutils.FileWriteBuilder;
 import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
+import org.jenkins_ci.plugins.run_condition.RunCondition;
+import org.jenkins_ci.plugins.run_condition.common.BaseDirectory;
 import org.jenkins_ci.plugins.run_condition.core.AlwaysRun;
+import org.jenkins_ci.plugins.run_condition.core.FileExistsCondition;
+import org.jenkins_ci.plugins.run_condition.core.NeverRun;
+import org.jenkins_ci.plugins.run_condition.core.StatusCondition;
 import org.jenkins_ci.plugins.run_condition.core.StringsMatchCondition;
+import org.jenkins_ci.plugins.run_condition.logic.And;
+import org.jenkins_ci.plugins.run_condition.logic.ConditionContainer;
 import org.jvnet.hudson.test.HudsonTestCase;
 import org.jvnet.hudson.test.recipes.LocalData;
 
@@ -710,4 +740,507 @@ public class FlexiblePublisherTest extends HudsonTestCase {
             assertFalse(new File(b.getArtifactsDir(), "artifact.txt").exists());
         }
     }
+    
+    public void testCompiledConditionOrder() throws Exception {
+        RunCondition strings = new StringsMatchCondition("a", "a", false);
+        RunCondition never = new NeverRun();
+        RunCondition always = new AlwaysRun();
+        CompiledCondition compiled = CompiledCondition.compile(new And(Arrays.asList(
+                new ConditionContainer(strings),
+                new ConditionContainer(new And(Arrays.asList(
+                        new ConditionContainer(always),
+                        new ConditionContainer(never)
+                )))
+        )));
+        
+        // nested conditions are flattened, and cheaper ones come first.
+        assertEquals(CompiledCondition.AndCondition.class, compiled.getClass());
+        List<CompiledCondition> operands = ((CompiledCondition.AndCondition)compiled).getOperands();
+        assertEquals(3, operands.size());
+        assertSame(always, operands.get(0).getCondition());
+        assertSame(never, operands.get(1).getCondition());
+        assertSame(strings, operands.get(2).getCondition());
+        
+        FreeStyleProject p = createFreeStyleProject();
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertFalse(compiled.runPerform(b, new StreamBuildListener(new NullStream())));
+    }
+    
+    public void testCompiledConditionDependsOnResult() throws Exception {
+        assertFalse(CompiledCondition.compile(new StringsMatchCondition("a", "a", false)).dependsOnResult());
+        // environment variables only.
+        assertFalse(CompiledCondition.compile(new StringsMatchCondition("$FOO", "${BAR}", false)).dependsOnResult());
+        // token macros may refer the build result.
+        assertTrue(CompiledCondition.compile(new StringsMatchCondition(
+                "${BUILD_LOG_REGEX,regex=\"^FAILED\"}", "", false
+        )).dependsOnResult());
+        assertTrue(CompiledCondition.compile(new StringsMatchCondition("a", "$$a", false)).dependsOnResult());
+        assertTrue(CompiledCondition.compile(new StatusCondition("SUCCESS", "SUCCESS")).dependsOnResult());
+    }
+    
+    public void testAdaptiveConditionOrder() throws Exception {
+        RunCondition never = new NeverRun();
+        RunCondition always = new AlwaysRun();
+        CompiledCondition.CompositeCondition compiled = (CompiledCondition.CompositeCondition)CompiledCondition.compile(new And(Arrays.asList(
+                new ConditionContainer(always),
+                new ConditionContainer(never)
+        )));
+        assertSame(always, compiled.getOperands().get(0).getCondition());
+        
+        FreeStyleProject p = createFreeStyleProject();
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        for (int i = 0; i < 32; ++i) {
+            assertFalse(compiled.runPerform(b, new StreamBuildListener(new NullStream())));
+        }
+        
+        // NeverRun always decides the result, and is evaluated first.
+        ConditionStatistics statistics = ConditionStatistics.forJob(p);
+        assertEquals(1, statistics.getNode(compiled.getId(), 2).getOrder(compiled)[0]);
+        
+        statistics.saveIfDirty();
+        assertTrue(new File(p.getRootDir(), ConditionStatistics.FILENAME).exists());
+        
+        // not saved without updates.
+        assertTrue(new File(p.getRootDir(), ConditionStatistics.FILENAME).delete());
+        statistics.getNode(compiled.getId(), 2);
+        statistics.saveIfDirty();
+        assertFalse(new File(p.getRootDir(), ConditionStatistics.FILENAME).exists());
+        
+        // saved into the directory of the renamed job.
+        p.renameTo("renamed");
+        assertFalse(compiled.runPerform(b, new StreamBuildListener(new NullStream())));
+        statistics.saveIfDirty();
+        assertTrue(new File(p.getRootDir(), ConditionStatistics.FILENAME).exists());
+    }
+    
+    public void testPreEvaluateConditions() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getBuildersList().add(new FileWriteBuilder("artifact1.txt", "blahblahblah"));
+        p.getBuildersList().add(new FileWriteBuilder("artifact2.txt", "blahblahblah"));
+        FlexiblePublisher fp = new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("artifact1.txt", "", false),
+                                new FailurePublisher()
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null
+                ),
+                new ConditionalPublisher(
+                        // evaluated again as the build result is changed.
+                        new StatusCondition("SUCCESS", "SUCCESS"),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("artifact2.txt", "", false)
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null
+                )
+        ));
+        fp.setPreEvaluateConditions(true);
+        p.getPublishersList().add(fp);
+        
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertBuildStatus(Result.FAILURE, b);
+        assertTrue(new File(b.getArtifactsDir(), "artifact1.txt").exists());
+        assertFalse(new File(b.getArtifactsDir(), "artifact2.txt").exists());
+        
+        // publishers may change the result unless marked.
+        assertTrue(fp.getPublishers().get(1).isResultChanging());
+    }
+    
+    public void testPreEvaluatedConditionInvalidated() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        FreeStyleBuild b = assertBuildStatusSuccess(p.scheduleBuild2(0));
+        BuildListener listener = new StreamBuildListener(new NullStream());
+        CompiledCondition exists = CompiledCondition.compile(
+                new FileExistsCondition("artifact1.txt", new BaseDirectory.Workspace())
+        );
+        assertTrue(exists.dependsOnBuildState());
+        assertFalse(CompiledCondition.compile(new StringsMatchCondition("a", "a", false)).dependsOnBuildState());
+        
+        EvaluationScope scope = EvaluationScope.open(b);
+        try {
+            PreEvaluatedCondition preEvaluated = new PreEvaluatedCondition(
+                    exists,
+                    b.getResult(),
+                    scope,
+                    exists.runPerform(b, listener),
+                    null
+            );
+            assertFalse(preEvaluated.runPerform(b, listener));
+            
+            // evaluated again when a publisher runs.
+            b.getWorkspace().child("artifact1.txt").write("blahblahblah", "UTF-8");
+            scope.invalidate();
+            assertTrue(preEvaluated.runPerform(b, listener));
+        } finally {
+            scope.close();
+        }
+    }
+    
+    public void testPreEvaluateConditionsOutputOrder() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        List<ConditionalPublisher> publishers = Lists.newArrayList();
+        for (int i = 0; i < 10; ++i) {
+            publishers.add(new ConditionalPublisher(
+                    new StringsMatchCondition("group" + i, "group" + i, false),
+                    Arrays.<BuildStep>asList(new ResultPreservingRecorder()),
+                    new BuildStepRunner.Fail(),
+                    false,
+                    null,
+                    null
+            ));
+        }
+        FlexiblePublisher fp = new FlexiblePublisher(publishers);
+        fp.setPreEvaluateConditions(true);
+        p.getPublishersList().add(fp);
+        assertFalse(publishers.get(0).isResultChanging());
+        
+        FreeStyleBuild b = assertBuildStatusSuccess(p.scheduleBuild2(0));
+        String log = getLog(b);
+        int last = -1;
+        for (int i = 0; i < 10; ++i) {
+            int index = log.indexOf("[group" + i + "]");
+            assertTrue(log, index > last);
+            last = index;
+        }
+    }
+    
+    public static class ResultPreservingRecorder extends Recorder implements ResultPreservingPublisher {
+        @Override
+        public BuildStepMonitor getRequiredMonitorService() {
+            return BuildStepMonitor.NONE;
+        }
+        
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+            return true;
+        }
+        
+        @Extension
+        public static class DescriptorImpl extends BuildStepDescriptor<Publisher> {
+            @Override
+            public boolean isApplicable(Class<? extends AbstractProject> jobType) {
+                return true;
+            }
+            
+            @Override
+            public String getDisplayName() {
+                return "ResultPreservingRecorder";
+            }
+        }
+    }
+    
+    public void testBufferConsoleOutput() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        FlexiblePublisher fp = new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new FailurePublisher()
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null
+                )
+        ));
+        fp.setBufferConsoleOutput(true);
+        p.getPublishersList().add(fp);
+        
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertBuildStatus(Result.FAILURE, b);
+        // written from the buffer.
+        assertLogContains(String.format(
+                "[flexible-publish] %s (",
+                FlexiblePublisher.getBuildStepShortName(new FailurePublisher())
+        ), b);
+    }
+    
+    public void testSeparateStepLogs() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getBuildersList().add(new FileWriteBuilder("artifact.txt", "blahblahblah"));
+        FlexiblePublisher fp = new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("artifact.txt", "", false),
+                                new FailurePublisher()
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null,
+                        new FailAtEndExecutionStrategy()
+                )
+        ));
+        fp.setSeparateStepLogs(true);
+        p.getPublishersList().add(fp);
+        
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertBuildStatus(Result.FAILURE, b);
+        assertLogContains("[flexible-publish] Output of ", b);
+        
+        StepLogAction action = b.getAction(StepLogAction.class);
+        assertNotNull(action);
+        assertEquals(2, action.getLogs().size());
+        assertEquals(FlexiblePublishTimingAction.StepResult.SUCCESS, action.getLogs().get(0).getResult());
+        assertEquals(FlexiblePublishTimingAction.StepResult.FAILURE, action.getLogs().get(1).getResult());
+        assertTrue(action.getLogs().get(0).getFile().exists());
+        assertSame(action.getLogs().get(1), action.getDynamic("1"));
+        
+        // only the tail of a large output is shown, with the link to the full output.
+        StepLogAction.StepLog log = action.getLogs().get(0);
+        assertEquals(0, log.getOffset(false));
+        FileUtils.writeStringToFile(log.getFile(), StringUtils.repeat("x", StepLogAction.TAIL_KB * 1024 + 100), "UTF-8");
+        assertEquals(100, log.getOffset(false));
+        assertEquals(0, log.getOffset(true));
+        WebClient wc = createWebClient();
+        String page = wc.goTo(b.getUrl() + StepLogAction.DIRNAME + "/0/").asXml();
+        assertTrue(page, page.contains("Full Log"));
+        page = wc.goTo(b.getUrl() + StepLogAction.DIRNAME + "/0/full").asXml();
+        assertFalse(page, page.contains("Full Log"));
+    }
+    
+    public void testTimingAction() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getBuildersList().add(new FileWriteBuilder("artifact.txt", "blahblahblah"));
+        p.getPublishersList().add(new FlexiblePublisher(Arrays.asList(
+                new ConditionalPublisher(
+                        new AlwaysRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("artifact.txt", "", false),
+                                new FailurePublisher()
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null
+                ),
+                new ConditionalPublisher(
+                        new NeverRun(),
+                        Arrays.<BuildStep>asList(
+                                new ArtifactArchiver("artifact.txt", "", false)
+                        ),
+                        new BuildStepRunner.Fail(),
+                        false,
+                        null,
+                        null
+                )
+        )));
+        
+        FlexiblePublishMetrics metrics = FlexiblePublishMetrics.get();
+        long failures = metrics.counter(FlexiblePublishMetrics.STEP_FAILURES, "", "descriptor", FailurePublisher.class.getName()).getValue();
+        long skipped = metrics.counter(FlexiblePublishMetrics.GROUPS_SKIPPED, "").getValue();
+        
+        FreeStyleBuild b;
+        FlexiblePublishEventLog.ENABLED = true;
+        try {
+            b = p.scheduleBuild2(0).get();
+        } finally {
+            FlexiblePublishEventLog.ENABLED = false;
+        }
+        assertBuildStatus(Result.FAILURE, b);
+        
+        assertEquals(failures + 1, metrics.counter(FlexiblePublishMetrics.STEP_FAILURES, "", "descriptor", FailurePublisher.class.getName()).getValue());
+        assertEquals(skipped + 1, metrics.counter(FlexiblePublishMetrics.GROUPS_SKIPPED, "").getValue());
+        StringWriter prometheus = new StringWriter();
+        metrics.writePrometheus(prometheus);
+        assertTrue(prometheus.toString().contains("# TYPE " + FlexiblePublishMetrics.STEP_DURATION + " histogram"));
+        assertTrue(prometheus.toString().contains(FlexiblePublishMetrics.EVENT_LOG_DROPPED + " "));
+        
+        FlexiblePublishEventLog.flush(10, TimeUnit.SECONDS);
+        List<String> events = FileUtils.readLines(new File(b.getRootDir(), FlexiblePublishEventLog.FILENAME), "UTF-8");
+        assertTrue(events.get(0).contains("\"type\":\"publishStart\""));
+        int stepEnds = 0;
+        for (String event: events) {
+            if (event.contains("\"type\":\"stepEnd\"")) {
+                ++stepEnds;
+            }
+        }
+        assertEquals(2, stepEnds);
+        assertTrue(events.get(events.size() - 1).contains("\"type\":\"publishEnd\""));
+        
+        FlexiblePublishTimingAction action = b.getAction(FlexiblePublishTimingAction.class);
+        assertNotNull(action);
+        assertEquals(2, action.getGroups().size());
+        
+        FlexiblePublishTimingAction.GroupTiming group1 = action.getGroups().get(0);
+        assertEquals(ConditionEvaluator.Outcome.RUN, group1.getOutcome());
+        assertEquals(2, group1.getSteps().size());
+        assertEquals(FlexiblePublishTimingAction.StepResult.SUCCESS, group1.getSteps().get(0).getResult());
+        assertEquals(FlexiblePublishTimingAction.StepResult.FAILURE, group1.getSteps().get(1).getResult());
+        
+        FlexiblePublishTimingAction.GroupTiming group2 = action.getGroups().get(1);
+        assertEquals(ConditionEvaluator.Outcome.SKIP, group2.getOutcome());
+        assertEquals(1, group2.getSteps().size());
+        assertTrue(group2.getSteps().get(0).isSkipped());
+        
+        // skipped publishers are not counted.
+        PublisherDurationAction durations = new PublisherDurationAction(p);
+        assertEquals(1, durations.getBuilds());
+        assertEquals(2, durations.getPublishers().size());
+        assertEquals(1, durations.getPublishers().get(0).getSamples());
+        // keyed by descriptor ids, not by display names depending on locales.
+        ArtifactArchiver.DescriptorImpl archiver = jenkins.getDescriptorByType(ArtifactArchiver.DescriptorImpl.class);
+        assertEquals(archiver.getId(), durations.getPublishers().get(0).getId());
+        assertEquals(archiver.getDisplayName(), durations.getPublishers().get(0).getName());
+    }
+    
+    public void testPublisherDurationsOfMatrixProject() throws Exception {
+        MatrixProject p = jenkins.createProject(MatrixProject.class, "matrix");
+        p.setAxes(new AxisList(new TextAxis("axis1", "value1", "value2")));
+        p.getPublishersList().add(new FlexiblePublisher(Arrays.asList(new ConditionalPublisher(
+                new AlwaysRun(),
+                Arrays.<BuildStep>asList(new ResultPreservingRecorder()),
+                new BuildStepRunner.Fail(),
+                false,
+                null,
+                null
+        ))));
+        assertBuildStatusSuccess(p.scheduleBuild2(0));
+        
+        // durations recorded for each configuration are combined.
+        PublisherDurationAction durations = new PublisherDurationAction(p);
+        assertEquals(1, durations.getBuilds());
+        assertEquals(1, durations.getPublishers().size());
+        assertEquals(2, durations.getPublishers().get(0).getSamples());
+        
+        // read again when updated.
+        assertBuildStatusSuccess(p.scheduleBuild2(0));
+        assertEquals(2, durations.getBuilds());
+        assertEquals(4, durations.getPublishers().get(0).getSamples());
+    }
+    
+    public void testSlowPublisherDetector() throws Exception {
+        FlexiblePublisher.FlexiblePublisherDescriptor d = jenkins.getDescriptorByType(FlexiblePublisher.FlexiblePublisherDescriptor.class);
+        ArtifactArchiver archiver = new ArtifactArchiver("artifact.txt", "", false);
+        d.setSlowPublisherThresholds(Arrays.asList(new SlowPublisherThreshold(archiver.getDescriptor().getId(), 10)));
+        try {
+            FreeStyleProject p = createFreeStyleProject();
+            FreeStyleBuild b = p.scheduleBuild2(0).get();
+            BuildListener listener = new StreamBuildListener(new NullStream());
+            
+            assertFalse(SlowPublisherDetector.check(b, archiver, TimeUnit.SECONDS.toNanos(1), listener));
+            assertNull(b.getAction(SlowPublisherBadgeAction.class));
+            
+            assertTrue(SlowPublisherDetector.check(b, archiver, TimeUnit.SECONDS.toNanos(11), listener));
+            SlowPublisherBadgeAction badge = b.getAction(SlowPublisherBadgeAction.class);
+            assertNotNull(badge);
+            assertEquals(1, badge.getPublishers().size());
+            assertEquals(10000, badge.getPublishers().get(0).getThresholdMillis());
+            
+            // publishers without thresholds are never reported.
+            assertFalse(SlowPublisherDetector.check(b, new FailurePublisher(), TimeUnit.SECONDS.toNanos(11), listener));
+        } finally {
+            d.setSlowPublisherThresholds(null);
+        }
+    }
+    
+    public void testSlowPublisherThresholdItems() throws Exception {
+        SlowPublisherThreshold.DescriptorImpl d = jenkins.getDescriptorByType(SlowPublisherThreshold.DescriptorImpl.class);
+        List<String> ids = Lists.newArrayList();
+        for (ListBoxModel.Option option: d.doFillPublisherItems()) {
+            ids.add(option.value);
+        }
+        assertTrue(ids.contains(jenkins.getDescriptorByType(ArtifactArchiver.DescriptorImpl.class).getId()));
+        // builders used with Any Build Step plugin.
+        assertTrue(ids.contains(jenkins.getDescriptorByType(Shell.DescriptorImpl.class).getId()));
+        assertFalse(ids.contains(jenkins.getDescriptorByType(FlexiblePublisher.FlexiblePublisherDescriptor.class).getId()));
+    }
+    
+    public void testFileConditionResultsShared() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        p.getBuildersList().add(new FileWriteBuilder("artifact1.txt", "blahblahblah"));
+        FreeStyleBuild b = assertBuildStatusSuccess(p.scheduleBuild2(0));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BuildListener listener = new StreamBuildListener(out);
+        
+        CompiledCondition exists = CompiledCondition.compile(
+                new FileExistsCondition("artifact1.txt", new BaseDirectory.Workspace())
+        );
+        CompiledCondition notExists = CompiledCondition.compile(
+                new FileExistsCondition("artifact2.txt", new BaseDirectory.Workspace())
+        );
+        EvaluationScope scope = EvaluationScope.open(b);
+        try {
+            WorkspaceProbe.prepare(b, Arrays.asList(exists, notExists));
+            
+            // files of all registered conditions are probed at once.
+            assertTrue(exists.runPerform(b, listener));
+            assertTrue(out.toString().contains("probed files of 2 conditions in 1 remote call(s)"));
+            out.reset();
+            assertFalse(notExists.runPerform(b, listener));
+            assertFalse(out.toString().contains("probed files"));
+            assertTrue(out.toString().contains("resolved in advance"));
+            
+            // conditions with the same configuration share the result.
+            out.reset();
+            assertTrue(CompiledCondition.compile(
+                    new FileExistsCondition("artifact1.txt", new BaseDirectory.Workspace())
+            ).runPerform(b, listener));
+            assertFalse(out.toString().contains("probed files"));
+            
+            // discarded when publishers run.
+            scope.invalidate();
+            out.reset();
+            assertFalse(notExists.runPerform(b, listener));
+            assertTrue(out.toString().contains("probed files of 2 conditions in 1 remote call(s)"));
+        } finally {
+            scope.close();
+        }
+    }
+    
+    public void testEvaluationScope() throws Exception {
+        FreeStyleProject p = createFreeStyleProject();
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        BuildListener listener = new StreamBuildListener(new NullStream());
+        assertNull(EvaluationScope.current(b));
+        
+        EvaluationScope scope = EvaluationScope.open(b);
+        try {
+            assertSame(scope, EvaluationScope.current(b));
+            // joins the active scope.
+            EvaluationScope nested = EvaluationScope.open(b);
+            assertSame(scope, nested);
+            nested.close();
+            assertSame(scope, EvaluationScope.current(b));
+            
+            assertEquals(p.getName(), EnvironmentSnapshot.expand(b, listener, "${JOB_NAME}"));
+            // token macros are left to conditions.
+            assertNull(EnvironmentSnapshot.expand(b, listener, "${BUILD_LOG_REGEX,regex=\"x\"}"));
+            assertNull(EnvironmentSnapshot.expand(b, listener, "${NO_SUCH_VARIABLE}"));
+            assertNull(EnvironmentSnapshot.expand(b, listener, "$${JOB_NAME}"));
+            assertNull(StringConditions.evaluate(b, new StringsMatchCondition("${ENV,var=\"JOB_NAME\"}", p.getName(), false), listener));
+            assertEquals(Boolean.TRUE, StringConditions.evaluate(b, new StringsMatchCondition("${JOB_NAME}", p.getName(), false), listener));
+            
+            // shared with other threads.
+            final EvaluationScope shared = scope;
+            final FreeStyleBuild build = b;
+            final EvaluationScope[] joined = new EvaluationScope[1];
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    shared.join();
+                    try {
+                        joined[0] = EvaluationScope.current(build);
+                    } finally {
+                        shared.close();
+                    }
+                }
+            };
+            t.start();
+            t.join();
+            assertSame(scope, joined[0]);
+        } finally {
+            scope.close();
+        }
+        // nothing is retained after closed.
+        assertNull(EvaluationScope.current(b));
+    }
 }
@@ -23,20 +23,33 @@
  */
 package org.jenkins_ci.plugins.flexible_publish;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
+import hudson.model.BuildListener;
 import hudson.model.FreeStyleBuild;
 import hudson.model.Result;
 import hudson.model.BooleanParameterDefinition;
 import hudson.model.BooleanParameterValue;
 import hudson.model.Cause;
+import hudson.model.DependencyGraph;
 import hudson.model.FreeStyleProject;
+import hudson.model.Items;
 import hudson.model.ParametersAction;
 import hudson.model.ParametersDefinitionProperty;
+import hudson.model.StreamBuildListener;
+import hudson.model.TaskListener;
 import hudson.tasks.BuildStep;
 import hudson.tasks.BuildTrigger;
+import hudson.util.NullStream;
+import hudson.util.StreamTaskListener;
 
+import org.jenkins_ci.plugins.flexible_publish.condition.ConditionEvaluator;
+import org.jenkins_ci.plugins.flexible_publish.metrics.FlexiblePublishMetrics;
 import org.jenkins_ci.plugins.run_condition.RunCondition;
 import org.jenkins_ci.plugins.run_condition.BuildStepRunner;
 import org.jenkins_ci.plugins.run_condition.core.NumericalComparisonCondition;
@@ -280,4 +293,131 @@ public class TriggerTest extends HudsonTestCase {
             p3Build.delete();
         }
     }
+    
+    public void testEquivalentConditionsAreEqual() throws Exception {
+        FreeStyleProject p1 = createFreeStyleProject();
+        FreeStyleProject p2 = createFreeStyleProject();
+        DependencyGraph.Dependency dep = new DependencyGraph.Dependency(p1, p2);
+        
+        ConditionalDependencyWrapper d1 = new ConditionalDependencyWrapper(
+                dep,
+                new StringsMatchCondition("${trigger_p2}", "true", false),
+                new BuildStepRunner.Run()
+        );
+        ConditionalDependencyWrapper d2 = new ConditionalDependencyWrapper(
+                dep,
+                new StringsMatchCondition("${trigger_p2}", "true", false),
+                new BuildStepRunner.Run()
+        );
+        assertEquals(d1, d2);
+        assertEquals(d1.hashCode(), d2.hashCode());
+        
+        ConditionalDependencyWrapper differentCondition = new ConditionalDependencyWrapper(
+                dep,
+                new StringsMatchCondition("${trigger_p2}", "false", false),
+                new BuildStepRunner.Run()
+        );
+        assertFalse(d1.equals(differentCondition));
+        
+        ConditionalDependencyWrapper differentRunner = new ConditionalDependencyWrapper(
+                dep,
+                new StringsMatchCondition("${trigger_p2}", "true", false),
+                new BuildStepRunner.DontRun()
+        );
+        assertFalse(d1.equals(differentRunner));
+    }
+    
+    public void testTriggerEvaluationIsRecorded() throws Exception {
+        FreeStyleProject p1 = createFreeStyleProject();
+        FreeStyleProject p2 = createFreeStyleProject();
+        
+        p1.addProperty(new ParametersDefinitionProperty(new BooleanParameterDefinition(
+                "trigger_p2",
+                false,
+                "Whether trigger p2"
+        )));
+        p1.getPublishersList().add(new FlexiblePublisher(Arrays.asList(new ConditionalPublisher(
+                new StringsMatchCondition("${trigger_p2}", "true", false),
+                new BuildTrigger(p2.getName(), Result.SUCCESS),
+                new BuildStepRunner.Run()
+        ))));
+        p1.save();
+        jenkins.rebuildDependencyGraph();
+        
+        long evaluations = TriggerEvaluationStatistics.get().getTotal().getEvaluations();
+        
+        FreeStyleBuild p1Build = p1.scheduleBuild2(0, new Cause.UserCause(), new ParametersAction(
+                new BooleanParameterValue("trigger_p2", false)
+        )).get(60, TimeUnit.SECONDS);
+        assertBuildStatusSuccess(p1Build);
+        waitUntilNoActivityUpTo(60 * 1000);
+        
+        TriggerEvaluationAction action = p1Build.getAction(TriggerEvaluationAction.class);
+        assertNotNull(action);
+        assertEquals(1, action.getEvaluations().size());
+        TriggerEvaluationAction.TriggerEvaluation evaluation = action.getEvaluations().get(0);
+        assertEquals(p1.getFullName(), evaluation.getUpstreamProject());
+        assertEquals(p1Build.getNumber(), evaluation.getUpstreamBuildNumber());
+        assertEquals(p2.getFullName(), evaluation.getDownstreamProject());
+        assertFalse(evaluation.isConditionMet());
+        assertFalse(evaluation.isTriggered());
+        assertNull(evaluation.getException());
+        
+        assertEquals(evaluations + 1, TriggerEvaluationStatistics.get().getTotal().getEvaluations());
+        
+        // metrics are read from the statistics.
+        StringWriter prometheus = new StringWriter();
+        FlexiblePublishMetrics.get().writePrometheus(prometheus);
+        long notTriggered = evaluations + 1 - TriggerEvaluationStatistics.get().getTotal().getTriggered();
+        assertTrue(prometheus.toString(), prometheus.toString().contains(
+                String.format("%s{triggered=\"false\"} %d\n", FlexiblePublishMetrics.TRIGGER_EVALUATIONS, notTriggered)
+        ));
+        
+        // the outcome in the publisher phase is recorded, and reused for the trigger.
+        ConditionOutcomeAction outcomes = p1Build.getAction(ConditionOutcomeAction.class);
+        assertNotNull(outcomes);
+        assertEquals(1, outcomes.getOutcomes().size());
+        assertEquals(ConditionEvaluator.Outcome.SKIP, outcomes.getOutcomes().get(0).getOutcome());
+        assertFalse(outcomes.getOutcomes().get(0).isRun());
+    }
+    
+    public void testConditionOutcomeKeepsException() throws Exception {
+        IOException exception = new IOException("some failure");
+        ConditionOutcomeAction.ConditionOutcome outcome = new ConditionOutcomeAction.ConditionOutcome(
+                "key",
+                ConditionEvaluator.Evaluation.of(ConditionEvaluator.Outcome.ERROR, false, false, exception),
+                Result.SUCCESS
+        );
+        assertSame(exception, outcome.toEvaluation().getException());
+        
+        // only the message is persisted.
+        ConditionOutcomeAction.ConditionOutcome restored = (ConditionOutcomeAction.ConditionOutcome)Items.XSTREAM2.fromXML(
+                Items.XSTREAM2.toXML(outcome)
+        );
+        assertEquals(ConditionEvaluator.Outcome.ERROR, restored.toEvaluation().getOutcome());
+        assertNotNull(restored.toEvaluation().getException());
+        assertTrue(restored.toEvaluation().getException().getMessage().contains("some failure"));
+    }
+    
+    public void testBuildListenerAdapter() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TaskListener taskListener = new StreamTaskListener(out, StandardCharsets.UTF_8);
+        BuildListener listener = BuildListenerAdapter.wrap(taskListener);
+        assertNotSame(taskListener, listener);
+        assertSame(taskListener.getLogger(), listener.getLogger());
+        
+        listener.getLogger().println("some output");
+        listener.error("some error").println("some details");
+        listener.hyperlink("/job/upstream/", "some link");
+        listener.getLogger().flush();
+        String log = out.toString("UTF-8");
+        assertTrue(log, log.contains("some output"));
+        assertTrue(log, log.contains("some error"));
+        assertTrue(log, log.contains("some details"));
+        assertTrue(log, log.contains("some link"));
+        
+        // BuildListener is used as it is.
+        BuildListener buildListener = new StreamBuildListener(new NullStream());
+        assertSame(buildListener, BuildListenerAdapter.wrap(buildListener));
+    }
 }